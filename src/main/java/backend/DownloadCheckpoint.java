@@ -0,0 +1,49 @@
+package backend;
+
+import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableDownloadCheckpoint;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The progress of a repository's initial download, from which an interrupted download can be resumed.
+ * Pages of issues are downloaded out of order, so only the unbroken run of pages from the first
+ * is kept.
+ */
+public class DownloadCheckpoint {
+
+    public final String repoId;
+    // The issues on the pages downloaded so far, in order
+    public final List<TurboIssue> issues;
+    public final int completedPages;
+    // When the download was first started; issues changed since may have been missed
+    public final Date startTime;
+
+    public DownloadCheckpoint(String repoId, List<TurboIssue> issues, int completedPages, Date startTime) {
+        this.repoId = repoId;
+        this.issues = new ArrayList<>(issues);
+        this.completedPages = completedPages;
+        this.startTime = new Date(startTime.getTime());
+    }
+
+    public DownloadCheckpoint(SerializableDownloadCheckpoint checkpoint) {
+        this(checkpoint.repoId,
+            checkpoint.issues.stream()
+                .map(i -> new TurboIssue(checkpoint.repoId, i))
+                .collect(Collectors.toList()),
+            checkpoint.completedPages,
+            new Date(checkpoint.startTime));
+    }
+
+    /**
+     * The update signature of a model downloaded from this checkpoint. It has no ETags, and its
+     * last-check time is when the download was started, so the first update brings in the issues
+     * changed while it was interrupted.
+     */
+    public UpdateSignature getUpdateSignature() {
+        return new UpdateSignature(null, null, null, null, startTime);
+    }
+}
@@ -0,0 +1,80 @@
+package backend;
+
+import backend.resource.Model;
+import backend.resource.ModelDelta;
+import backend.resource.TurboIssue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The issues added, replaced and removed across a number of models, with which the sorted results of
+ * filtering the old models can be brought up to date without filtering all the issues again.
+ */
+public class IssueChanges {
+    private final List<Model> models;
+
+    // Old instances of issues which were replaced or removed
+    private final Set<TurboIssue> staleIssues = Collections.newSetFromMap(new IdentityHashMap<>());
+    // New instances of issues which were added or replaced
+    private final List<TurboIssue> freshIssues = new ArrayList<>();
+
+    // Positions of all issues in the models, computed only if there are fresh issues to place
+    private Map<TurboIssue, Integer> encounterOrder = null;
+
+    /**
+     * @param models The models as they are after the changes, which equal issues are ordered by
+     */
+    public IssueChanges(List<Model> models) {
+        this.models = models;
+    }
+
+    public void add(ModelDelta delta) {
+        staleIssues.addAll(delta.getRemovedIssues());
+        delta.getChangedIssues().forEach(issue ->
+                delta.getBefore().getIssueById(issue.getId()).ifPresent(staleIssues::add));
+        freshIssues.addAll(delta.getAddedIssues());
+        freshIssues.addAll(delta.getChangedIssues());
+    }
+
+    private synchronized Map<TurboIssue, Integer> getEncounterOrder() {
+        if (encounterOrder == null) {
+            encounterOrder = new IdentityHashMap<>();
+            models.stream()
+                    .flatMap(model -> model.getIssues().stream())
+                    .forEach(issue -> encounterOrder.put(issue, encounterOrder.size()));
+        }
+        return encounterOrder;
+    }
+
+    public boolean isEmpty() {
+        return staleIssues.isEmpty() && freshIssues.isEmpty();
+    }
+
+    /**
+     * Removes stale issues from a sorted list of issues, then inserts the fresh issues matching the filter
+     * in sorted position. Issues which compare equal are ordered by their position in the models, so the
+     * result is the same as a stable sort of all matching issues.
+     */
+    public List<TurboIssue> applyTo(List<TurboIssue> sortedIssues, Predicate<TurboIssue> filter,
+                                    Comparator<TurboIssue> comparator) {
+        List<TurboIssue> result = new ArrayList<>(sortedIssues);
+        result.removeIf(staleIssues::contains);
+        if (freshIssues.isEmpty()) {
+            return result;
+        }
+
+        Comparator<TurboIssue> stableComparator = comparator.thenComparing(getEncounterOrder()::get);
+        freshIssues.stream().filter(filter).forEach(issue -> {
+            int index = Collections.binarySearch(result, issue, stableComparator);
+            result.add(index < 0 ? -(index + 1) : index, issue);
+        });
+        return result;
+    }
+}
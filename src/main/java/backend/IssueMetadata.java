@@ -1,7 +1,12 @@
 package backend;
 
+import backend.resource.serialization.SerializableComment;
+import backend.resource.serialization.SerializableIssueEvent;
+import backend.resource.serialization.SerializableIssueMetadata;
+import github.ReviewComment;
 import github.TurboIssueEvent;
 import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.User;
 
 import util.Utility;
 import java.time.LocalDateTime;
@@ -9,6 +14,9 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
+
+import static util.Utility.replaceNull;
 
 public final class IssueMetadata {
 
@@ -39,6 +47,32 @@ public final class IssueMetadata {
         return new IssueMetadata(new ArrayList<>(), new ArrayList<>(), false, "", "");
     }
 
+    /**
+     * Reconstructs a metadata instance kept in the store. Like an invalidated instance, it is not
+     * known to be the latest, but its ETags allow it to be brought up to date with conditional requests.
+     */
+    public static IssueMetadata fromSerializable(SerializableIssueMetadata metadata) {
+        List<TurboIssueEvent> events = replaceNull(metadata.getEvents(), new ArrayList<SerializableIssueEvent>())
+            .stream().map(TurboIssueEvent::new).collect(Collectors.toList());
+        List<Comment> comments = replaceNull(metadata.getComments(), new ArrayList<SerializableComment>())
+            .stream().map(IssueMetadata::toComment).collect(Collectors.toList());
+        String user = replaceNull(metadata.getUser(), "");
+        LocalDateTime nonSelfUpdatedAt = metadata.getNonSelfUpdatedAt() == null
+            ? computeNonSelfUpdatedAt(events, comments, user)
+            : metadata.getNonSelfUpdatedAt();
+        return new IssueMetadata(events, comments, false,
+            replaceNull(metadata.getEventsETag(), ""), replaceNull(metadata.getCommentsETag(), ""),
+            nonSelfUpdatedAt, user);
+    }
+
+    private static Comment toComment(SerializableComment comment) {
+        Comment result = comment.isReviewComment() ? new ReviewComment() : new Comment();
+        return result.setId(comment.getId())
+            .setUser(new User().setLogin(replaceNull(comment.getUser(), "")))
+            .setCreatedAt(new Date(comment.getCreatedAt()))
+            .setUpdatedAt(new Date(comment.getUpdatedAt()));
+    }
+
     /**
      * Invalidates a metadata instance. This occurs after issue updates are reconciled; in
      * that case we assume the metadata is no longer the latest.
@@ -191,6 +225,17 @@ public final class IssueMetadata {
         return nonSelfCommentCount;
     }
 
+    /**
+     * True if nothing has been downloaded for this metadata, so there is nothing worth keeping.
+     */
+    public boolean isEmpty() {
+        return events.isEmpty() && comments.isEmpty() && eventsETag.isEmpty() && commentsETag.isEmpty();
+    }
+
+    public String getUser() {
+        return user;
+    }
+
     public String getEventsETag() {
         return eventsETag;
     }
@@ -1,7 +1,9 @@
 package backend;
 
 import backend.resource.Model;
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
+import backend.interfaces.RequestPriority;
 import backend.resource.TurboIssue;
 import filter.expression.FilterExpression;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -26,11 +28,19 @@ public class Logic {
 
     private static final Logger logger = HTLog.get(Logic.class);
 
+    // Repositories updated within this many milliseconds of the first are shown together
+    private static final long UPDATE_COALESCE_DELAY = 100;
+
     private final MultiModel models;
     private final UIManager uiManager;
     protected final Preferences prefs;
 
     private final RepoIO repoIO;
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler();
+    private final ModelDeltaCoalescer deltaCoalescer = new ModelDeltaCoalescer(UPDATE_COALESCE_DELAY, this::refreshUI);
+    // The repositories referenced by panel filters. Panels may only be read on the JavaFX thread, while
+    // refreshes are started on the refresh timer's, so this is replaced on the former whenever they change.
+    private volatile Set<String> reposOnPanels = Collections.emptySet();
     public LoginController loginController;
     public UpdateController updateController;
 
@@ -40,6 +50,7 @@ public class Logic {
         this.models = new MultiModel(prefs);
 
         repoIO = TestController.createApplicationRepoIO();
+        repoIO.setMetadataDownloadConcurrency(prefs.getMetadataDownloadConcurrency());
         loginController = new LoginController(this);
         updateController = new UpdateController(this);
 
@@ -79,23 +90,74 @@ public class Logic {
             logger.info("Notification Pane is currently showing, not going to refresh. ");
             return;
         }
-        String message = "Refreshing " + models.toModels().stream()
+        // Repositories no panel refers to are left to refreshScheduler, which syncs them far less often,
+        // or as soon as a panel refers to them again
+        Set<String> visibleRepos = getVisibleRepos();
+        Map<String, Model> visibleModels = models.toModels().stream()
+                .filter(model -> visibleRepos.contains(model.getRepoId().toLowerCase()))
+                .collect(Collectors.toMap(Model::getRepoId, model -> model));
+        // Repositories which refreshScheduler has started refreshing already are not refreshed again meanwhile
+        List<String> toRefresh = refreshScheduler.takeRepos(visibleModels.keySet(), System.currentTimeMillis());
+        refresh(toRefresh.stream().map(visibleModels::get).collect(Collectors.toList()));
+    }
+
+    /**
+     * Refreshes the repositories which are due according to refreshScheduler, and shows how long it is
+     * until the next one is. Meant to be called every second.
+     */
+    public void refreshDueRepositories(boolean isNotificationPaneShowing) {
+        long now = System.currentTimeMillis();
+        if (!isNotificationPaneShowing) {
+            Map<String, Model> openModels = models.toModels().stream()
+                    .collect(Collectors.toMap(Model::getRepoId, model -> model));
+            List<String> dueRepos = refreshScheduler.takeDueRepos(openModels.keySet(), getVisibleRepos(), now);
+            if (!dueRepos.isEmpty()) {
+                refresh(dueRepos.stream().map(openModels::get).collect(Collectors.toList()));
+            }
+        }
+        UI.status.updateTimeToRefresh(refreshScheduler.getTimeToNextRefresh(now));
+    }
+
+    private void refresh(List<Model> toRefresh) {
+        if (toRefresh.isEmpty()) {
+            return;
+        }
+        String message = "Refreshing " + toRefresh.stream()
                 .map(Model::getRepoId)
                 .collect(Collectors.joining(", "));
 
         logger.info(message);
         UI.status.displayMessage(message);
 
-        Futures.sequence(models.toModels().stream()
-                .map(repoIO::updateModel)
+        Set<String> visibleRepos = getVisibleRepos();
+        Futures.sequence(toRefresh.stream()
+                .map(model -> repoIO.updateModel(model, visibleRepos.contains(model.getRepoId().toLowerCase())
+                        ? RequestPriority.VISIBLE
+                        : RequestPriority.BACKGROUND)
+                        // Each repository is shown as soon as it is updated, rather than once all are
+                        .thenApply(updated -> showUpdatedModel(updated).map(delta -> !delta.isEmpty()).orElse(false))
+                        // The repository is released even if the refresh failed, or it would never be due again
+                        .whenComplete((hasChanged, e) -> refreshScheduler.refreshed(model.getRepoId(),
+                                e == null && hasChanged, System.currentTimeMillis())))
                 .collect(Collectors.toList()))
-                .thenApply(models::replace)
-                .thenRun(this::refreshUI)
+                .thenRun(() -> logger.info("Refreshed; source pool has " + repoIO.summariseSourcePool()))
                 .thenCompose(n -> getRateLimitResetTime())
                 .thenApply(this::updateRemainingRate)
                 .exceptionally(Futures::log);
     }
 
+    /**
+     * Determines the repositories shown in panels, in lower case: those referenced by panel filters,
+     * and the default repository, which is shown by panels whose filters name none.
+     */
+    private Set<String> getVisibleRepos() {
+        Set<String> visibleRepos = new HashSet<>(reposOnPanels);
+        if (getDefaultRepo() != null) {
+            visibleRepos.add(getDefaultRepo());
+        }
+        return Utility.convertSetToLowerCase(visibleRepos);
+    }
+
     public CompletableFuture<Boolean> openPrimaryRepository(String repoId) {
         return openRepository(repoId, true);
     }
@@ -120,10 +182,15 @@ public class Logic {
             } else {
                 logger.info("Opening " + repoId);
                 UI.status.displayMessage("Opening " + repoId);
-                return repoIO.openRepository(repoId)
-                        .thenApply(models::addPending)
-                        .thenRun(this::refreshUI)
-                        .thenRun(() -> UI.events.triggerEvent(new RepoOpenedEvent(repoId)))
+                // A stored repository is shown as soon as it is loaded, and then brought up to date
+                return repoIO.openRepository(repoId, storedModel -> showOpenedRepository(repoId, storedModel))
+                        .thenAccept(model -> {
+                            if (models.isRepositoryPending(repoId)) {
+                                showOpenedRepository(repoId, model);
+                            } else {
+                                showUpdatedModel(model);
+                            }
+                        })
                         .thenCompose(n -> getRateLimitResetTime())
                         .thenApply(this::updateRemainingRate)
                         .thenApply(rateLimits -> true)
@@ -132,6 +199,24 @@ public class Logic {
         });
     }
 
+    private void showOpenedRepository(String repoId, Model model) {
+        models.addPending(model);
+        refreshUI();
+        UI.events.triggerEvent(new RepoOpenedEvent(repoId));
+    }
+
+    /**
+     * Swaps an updated model in for the one it was updated from, and queues its changes to be shown
+     * along with those of other repositories updated at about the same time. Repositories which have
+     * been closed in the meantime are left out.
+     * @return the changes made to the repository's model, or empty if it is no longer open
+     */
+    private Optional<ModelDelta> showUpdatedModel(Model model) {
+        Optional<ModelDelta> delta = models.update(model).map(previous -> ModelDelta.between(previous, model));
+        delta.ifPresent(deltaCoalescer::add);
+        return delta;
+    }
+
     public Set<String> getOpenRepositories() {
         return models.toModels().stream().map(Model::getRepoId).map(String::toLowerCase).collect(Collectors.toSet());
     }
@@ -156,6 +241,14 @@ public class Logic {
         return repoIO.removeRepository(repoId);
     }
 
+    /**
+     * Records the repositories referenced by panel filters, for refreshes to be prioritised by.
+     * Meant to be called on the JavaFX thread whenever panels or their filters change.
+     */
+    public void updateReposOnPanels(Set<String> reposOnPanels) {
+        this.reposOnPanels = Collections.unmodifiableSet(new HashSet<>(reposOnPanels));
+    }
+
     /**
      * Recommended Pre-condition: normalize reposInUse to lower case
      *                           - using Utility.convertSetToLowerCase()
@@ -169,6 +262,7 @@ public class Logic {
     public ImmutablePair<Integer, Long> updateRemainingRate
             (ImmutablePair<Integer, Long> rateLimits) {
         uiManager.updateRateLimits(rateLimits);
+        refreshScheduler.updateRateLimit(rateLimits.left, rateLimits.right);
         return rateLimits;
     }
 
@@ -221,6 +315,15 @@ public class Logic {
         updateController.filterSortRefresh(getAllUIFilters());
     }
 
+    /**
+     * Like refreshUI, but only reprocesses the parts of panels affected by the given changes to the model.
+     *
+     * @param deltas The changes made to each repository's model since the GUI was last refreshed.
+     */
+    private void refreshUI(List<ModelDelta> deltas) {
+        updateController.filterSortRefresh(getAllUIFilters(), deltas);
+    }
+
     /**
      * Feeds a one-element list of filter expressions to updateController.
      *
@@ -253,7 +356,9 @@ public class Logic {
     private boolean insertMetadata(Map<Integer, IssueMetadata> metadata, String repoId, String currentUser) {
         String updatedMessage = "Received metadata from " + repoId + "!";
         UI.status.displayMessage(updatedMessage);
-        models.insertMetadata(repoId, metadata, currentUser);
+        // Metadata is kept in the store, so that after a restart it can be updated with conditional requests.
+        // Only new metadata is written, and only if the model is still the latest stored (see RepoIO).
+        models.insertMetadata(repoId, metadata, currentUser).ifPresent(repoIO::saveRepositoryMetadata);
         return true;
     }
 
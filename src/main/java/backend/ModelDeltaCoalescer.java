@@ -0,0 +1,59 @@
+package backend;
+
+import backend.resource.ModelDelta;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Gathers the deltas of repositories updated at about the same time, so that panels are reprocessed once
+ * for all of them rather than once for each.
+ *
+ * The first delta added after a flush schedules the next one, a fixed delay later; deltas added until then
+ * are passed on with it. Successive deltas of one repository are merged into one spanning both.
+ */
+public class ModelDeltaCoalescer {
+
+    private final long delay;
+    private final Consumer<List<ModelDelta>> onFlush;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Model delta coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Deltas waiting to be flushed, by repository, in the order they were first added
+    private final Map<String, ModelDelta> pendingDeltas = new LinkedHashMap<>();
+
+    /**
+     * @param delay how long in milliseconds to gather deltas for after the first one
+     * @param onFlush receives the deltas gathered, on the coalescer's own thread
+     */
+    public ModelDeltaCoalescer(long delay, Consumer<List<ModelDelta>> onFlush) {
+        this.delay = delay;
+        this.onFlush = onFlush;
+    }
+
+    public synchronized void add(ModelDelta delta) {
+        if (pendingDeltas.isEmpty()) {
+            timer.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+        pendingDeltas.merge(delta.getRepoId(), delta,
+            (earlier, later) -> ModelDelta.between(earlier.getBefore(), later.getAfter()));
+    }
+
+    private void flush() {
+        List<ModelDelta> deltas;
+        synchronized (this) {
+            deltas = new ArrayList<>(pendingDeltas.values());
+            pendingDeltas.clear();
+        }
+        onFlush.accept(deltas);
+    }
+}
@@ -0,0 +1,177 @@
+package backend;
+
+import backend.github.UpdateModelTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Decides when each open repository is next refreshed, rather than refreshing all of them on one period.
+ *
+ * Each repository has its own interval, which shrinks when a refresh finds changes and grows when it finds
+ * none. Intervals are kept within bounds which are much tighter for repositories shown in panels than for
+ * the rest. The bounds follow a repository as panels come to refer to it or stop doing so, so one which has
+ * gone unsynced for a while is due as soon as a panel refers to it again.
+ *
+ * If refreshing every repository at its interval would take more requests than remain until the rate
+ * limit is reset, all intervals are stretched to fit, though no refresh is put off past the reset.
+ *
+ * Repositories are identified case-insensitively. Times are in milliseconds since the epoch.
+ */
+public class RefreshScheduler {
+
+    public static final long DEFAULT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    public static final long MIN_VISIBLE_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    public static final long MAX_VISIBLE_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    // Repositories no panel refers to are synced far less often, as the user is not looking at them
+    public static final long MIN_BACKGROUND_INTERVAL = TimeUnit.MINUTES.toMillis(15);
+    public static final long MAX_BACKGROUND_INTERVAL = TimeUnit.MINUTES.toMillis(60);
+
+    // How an interval changes after a refresh which found changes, and after one which did not
+    private static final double SPEED_UP_FACTOR = 0.5;
+    private static final double BACK_OFF_FACTOR = 1.5;
+
+    private static class RepoSchedule {
+        // Kept within the widest bounds; the bounds for the repository's visibility are applied when it is used
+        private long interval = DEFAULT_INTERVAL;
+        private long lastRefreshTime;
+        private boolean isVisible = false;
+        private boolean isRefreshing = false;
+
+        RepoSchedule(long lastRefreshTime) {
+            this.lastRefreshTime = lastRefreshTime;
+        }
+
+        long getInterval() {
+            return isVisible
+                ? clamp(interval, MIN_VISIBLE_INTERVAL, MAX_VISIBLE_INTERVAL)
+                : clamp(interval, MIN_BACKGROUND_INTERVAL, MAX_BACKGROUND_INTERVAL);
+        }
+    }
+
+    private final Map<String, RepoSchedule> schedules = new HashMap<>();
+
+    // The rate limit as last reported; -1 and 0 if unknown
+    private int remainingRequests = -1;
+    private long resetTime = 0;
+
+    /**
+     * Finds the open repositories which are due to be refreshed, and marks them as being refreshed until
+     * {@link #refreshed(String, boolean, long) refreshed} is called for them. Repositories opened since the
+     * last call are first refreshed an interval from now, as they have just been synced; those closed since
+     * are forgotten.
+     *
+     * @param openRepos The repositories which are open
+     * @param visibleRepos The repositories shown in panels, in lower case
+     * @param now The current time
+     * @return The repositories due to be refreshed, as given in openRepos
+     */
+    public synchronized List<String> takeDueRepos(Collection<String> openRepos, Set<String> visibleRepos,
+                                                  long now) {
+        schedules.keySet().retainAll(openRepos.stream().map(String::toLowerCase).collect(Collectors.toSet()));
+
+        List<String> dueRepos = new ArrayList<>();
+        for (String repoId : openRepos) {
+            RepoSchedule schedule = schedules.computeIfAbsent(repoId.toLowerCase(), id -> new RepoSchedule(now));
+            schedule.isVisible = visibleRepos.contains(repoId.toLowerCase());
+            if (!schedule.isRefreshing && now >= getNextRefreshTime(schedule, now)) {
+                schedule.isRefreshing = true;
+                dueRepos.add(repoId);
+            }
+        }
+        return dueRepos;
+    }
+
+    /**
+     * Like takeDueRepos, but takes the given repositories whether or not they are due, as when the user asks
+     * for them to be refreshed. Those which are being refreshed already are left out, so that no repository
+     * is updated twice at once.
+     *
+     * @param repos The repositories to refresh, which should be open
+     * @param now The current time
+     * @return The repositories which are not being refreshed already, as given in repos
+     */
+    public synchronized List<String> takeRepos(Collection<String> repos, long now) {
+        List<String> takenRepos = new ArrayList<>();
+        for (String repoId : repos) {
+            RepoSchedule schedule = schedules.computeIfAbsent(repoId.toLowerCase(), id -> new RepoSchedule(now));
+            if (!schedule.isRefreshing) {
+                schedule.isRefreshing = true;
+                takenRepos.add(repoId);
+            }
+        }
+        return takenRepos;
+    }
+
+    /**
+     * Records that a repository has been refreshed, whether or not it was due.
+     *
+     * @param repoId The repository refreshed
+     * @param hasChanged Whether the refresh found changes to it
+     * @param now The time the refresh finished
+     */
+    public synchronized void refreshed(String repoId, boolean hasChanged, long now) {
+        RepoSchedule schedule = schedules.computeIfAbsent(repoId.toLowerCase(), id -> new RepoSchedule(now));
+        schedule.isRefreshing = false;
+        schedule.lastRefreshTime = now;
+        schedule.interval = clamp((long) (schedule.interval * (hasChanged ? SPEED_UP_FACTOR : BACK_OFF_FACTOR)),
+                                  MIN_VISIBLE_INTERVAL, MAX_BACKGROUND_INTERVAL);
+    }
+
+    /**
+     * Records the rate limit last reported, as the budget for refreshes until it is reset.
+     */
+    public synchronized void updateRateLimit(int remainingRequests, long resetTime) {
+        this.remainingRequests = remainingRequests;
+        this.resetTime = resetTime;
+    }
+
+    /**
+     * @return The number of seconds until the next repository is due to be refreshed, rounded up,
+     * or -1 if there is none which is not being refreshed already
+     */
+    public synchronized int getTimeToNextRefresh(long now) {
+        return (int) schedules.values().stream()
+            .filter(schedule -> !schedule.isRefreshing)
+            .mapToLong(schedule -> Math.max(0, getNextRefreshTime(schedule, now) - now))
+            .map(time -> (time + TimeUnit.SECONDS.toMillis(1) - 1) / TimeUnit.SECONDS.toMillis(1))
+            .min()
+            .orElse(-1);
+    }
+
+    private long getNextRefreshTime(RepoSchedule schedule, long now) {
+        long interval = schedule.getInterval();
+        double budgetFactor = getBudgetFactor(now);
+        if (budgetFactor <= 1) {
+            return schedule.lastRefreshTime + interval;
+        }
+        // Once the rate limit has been reset, there are requests to spare again
+        return Math.min(schedule.lastRefreshTime + (long) (interval * budgetFactor),
+                        Math.max(resetTime, schedule.lastRefreshTime + interval));
+    }
+
+    /**
+     * Works out how much intervals have to be stretched for the requests remaining to last until the rate
+     * limit is reset, assuming each refresh takes as many requests as UpdateModelTask estimates.
+     */
+    private double getBudgetFactor(long now) {
+        if (remainingRequests < 0 || now >= resetTime) {
+            return 1;
+        }
+        double timeToReset = resetTime - now;
+        double requiredRequests = UpdateModelTask.ESTIMATED_REQUESTS * schedules.values().stream()
+            .mapToDouble(schedule -> timeToReset / schedule.getInterval())
+            .sum();
+        return requiredRequests / Math.max(1, remainingRequests);
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
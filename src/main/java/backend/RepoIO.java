@@ -3,6 +3,7 @@ package backend;
 import backend.github.GitHubSource;
 import backend.interfaces.RepoSource;
 import backend.interfaces.RepoStore;
+import backend.interfaces.RequestPriority;
 import backend.json.JSONStore;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
@@ -14,12 +15,13 @@ import util.HTLog;
 import util.events.ShowErrorDialogEvent;
 import util.events.UpdateProgressEvent;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import static util.Futures.withResult;
 
@@ -28,25 +30,30 @@ public class RepoIO {
     private static final Logger logger = HTLog.get(RepoIO.class);
 
     private final RepoSource repoSource;
-    private final JSONStore jsonStore;
+    private final RepoStore repoStore;
 
+    // Repositories are opened concurrently, so this may be updated from several threads
     private final List<String> storedRepos;
 
+    // The model of each repository last handed to the store, by lower-case repo id. Saves are queued while
+    // holding this map's lock, so the store writes models in the order they are recorded here.
+    private final Map<String, Model> lastStoredModels = new HashMap<>();
+
     private static final int MAX_REDOWNLOAD_TRIES = 2;
 
     /**
      * Contructs a RepoIO providing IO operations on repositories, taking in various optional
      * parameters for repos source and storage which are useful for testing purposes.
      * @param repoSource optional source of repos. Default to GitHubSource if not present
-     * @param jsonStore optional storage for repos. Default to a new JSONStore if not present
+     * @param repoStore optional storage for repos. Default to a new JSONStore if not present
      * @param storeDirectory optional directory for storing repos. Default value is in RepoStore.
      */
-    public RepoIO(Optional<RepoSource> repoSource, Optional<JSONStore> jsonStore,
+    public RepoIO(Optional<RepoSource> repoSource, Optional<RepoStore> repoStore,
                   Optional<String> storeDirectory) {
         this.repoSource = repoSource.orElseGet(() -> new GitHubSource());
         storeDirectory.ifPresent((dir) -> RepoStore.changeDirectory(dir));
-        this.jsonStore = jsonStore.orElseGet(() -> new JSONStore());
-        storedRepos = new ArrayList<>(this.jsonStore.getStoredRepos());
+        this.repoStore = repoStore.orElseGet(() -> new JSONStore());
+        storedRepos = new CopyOnWriteArrayList<>(this.repoStore.getStoredRepos());
     }
 
     public List<String> getStoredRepos() {
@@ -62,22 +69,28 @@ public class RepoIO {
     }
 
     public CompletableFuture<Model> openRepository(String repoId) {
+        return openRepository(repoId, storedModel -> {});
+    }
+
+    /**
+     * Like openRepository, but if the repository is stored, its stored model is passed to the given
+     * consumer as soon as it has been loaded, so that it can be shown while it is updated from the source.
+     * The returned future still completes with the updated model.
+     */
+    public CompletableFuture<Model> openRepository(String repoId, Consumer<Model> onStoredModelLoaded) {
         // The ignoreCase logic is necessary when we are opening a repo from the login dialog window
         // i.e. when the isAlreadyOpen check in Logic fails.
         Optional<String> matchingRepoName = storedRepos.stream().filter(repoName ->
                 repoName.equalsIgnoreCase(repoId)).findFirst();
         if (matchingRepoName.isPresent()) {
-            // TODO avoid CI deadlock in the .exceptionally call. Explanation:
-            /* loadRepoFromStoreAsync will execute in jsonStore's single thread pool, and if
-             it has an exception then downloadRepoFromSourceBlocking will also run there. Eventually,
-             this results in jsonStore.saveRepository in updateModel being placed as another Task on the
-             same thread pool. However, since the current task is still carrying out and waiting for the second
-             task to complete, the program gets deadlocked on the CI.
-             One example of how this can happen is when storedRepos contains the repo name but the json was
-             deleted while the program is still running. */
+            // If the stored repository cannot be loaded, it is downloaded again. This is composed rather than
+            // waited for, as waiting would hold up a store thread until the repository is saved by another.
             String repoToLoad = matchingRepoName.get();
-            return loadRepoFromStoreAsync(repoToLoad)
-                    .exceptionally(e -> downloadRepoFromSourceBlocking(repoToLoad));
+            return loadRepoFromStoreAsync(repoToLoad, onStoredModelLoaded)
+                    .handle((model, e) -> e == null
+                            ? CompletableFuture.completedFuture(model)
+                            : downloadRepoFromSourceAsync(repoToLoad))
+                    .thenCompose(future -> future);
         } else {
             return downloadRepoFromSourceAsync(repoId);
         }
@@ -85,11 +98,22 @@ public class RepoIO {
 
     public CompletableFuture<Boolean> removeRepository(String repoId) {
         storedRepos.remove(repoId);
-        return jsonStore.removeStoredRepo(repoId);
+        synchronized (lastStoredModels) {
+            lastStoredModels.remove(repoId.toLowerCase());
+        }
+        repoStore.removeCheckpoint(repoId);
+        return repoStore.removeStoredRepo(repoId);
     }
 
-    private CompletableFuture<Model> loadRepoFromStoreAsync(String repoId) {
-        return jsonStore.loadRepository(repoId)
+    private CompletableFuture<Model> loadRepoFromStoreAsync(String repoId, Consumer<Model> onLoaded) {
+        // The model is passed on off the store's threads, as showing it may take a while, and loads and saves
+        // of other repositories would be held up behind it. It is brought up to date only once it has been.
+        return repoStore.loadRepository(repoId)
+                .thenApplyAsync(model -> {
+                    recordStoredModel(model);
+                    onLoaded.accept(model);
+                    return model;
+                })
                 .thenCompose(this::updateModel);
     }
 
@@ -97,51 +121,71 @@ public class RepoIO {
         return downloadRepoFromSourceAsync(repoID, MAX_REDOWNLOAD_TRIES);
     }
 
+    /**
+     * Downloads a repository, resuming from where an earlier download left off if it was interrupted.
+     * The progress of the download is kept in the store until the repository itself has been stored.
+     */
     private CompletableFuture<Model> downloadRepoFromSourceAsync(String repoId, int remainingTries) {
         UI.status.displayMessage("Downloading " + repoId);
-        return repoSource.downloadRepository(repoId)
+        return repoStore.loadCheckpoint(repoId)
+                .thenCompose(checkpoint -> repoSource.downloadRepository(repoId, checkpoint,
+                                                                         repoStore::saveCheckpoint))
                 .thenCompose(newModel -> updateModel(newModel, remainingTries))
                 .thenApply(model -> {
                     storedRepos.add(repoId);
+                    repoStore.removeCheckpoint(repoId);
                     return model;
                 })
                 .exceptionally(withResult(new Model(repoId)));
     }
 
-    private Model downloadRepoFromSourceBlocking(String repoId) {
-        try {
-            return downloadRepoFromSourceAsync(repoId).get();
-        } catch (ExecutionException | InterruptedException e) {
-            logger.info("Error while downloading " + repoId);
-            logger.error(e.getLocalizedMessage());
+    /**
+     * Writes a model to the store again after issue metadata has been inserted into it, so that after a restart
+     * the metadata can be updated with conditional requests. Nothing is written if a newer model of the
+     * repository has been handed to the store since, as this one would put back its stale issues and ETags.
+     * @return true on failure, like RepoStore.saveRepository
+     */
+    public CompletableFuture<Boolean> saveRepositoryMetadata(Model model) {
+        synchronized (lastStoredModels) {
+            if (lastStoredModels.get(model.getRepoId().toLowerCase()) != model) {
+                logger.info(HTLog.format(model.getRepoId(), "Model has been superseded; not writing metadata"));
+                return CompletableFuture.completedFuture(false);
+            }
+            return repoStore.saveRepository(model.getRepoId(), new SerializableModel(model));
+        }
+    }
 
-            return new Model(repoId);
+    private void recordStoredModel(Model model) {
+        synchronized (lastStoredModels) {
+            lastStoredModels.put(model.getRepoId().toLowerCase(), model);
         }
     }
 
     public CompletableFuture<Model> updateModel(Model model) {
-        return updateModel(model, MAX_REDOWNLOAD_TRIES);
+        return updateModel(model, RequestPriority.VISIBLE);
+    }
+
+    /**
+     * Updates a model from the source, with a priority which determines how soon the update is skipped
+     * when the rate limit is near (see RequestScheduler).
+     */
+    public CompletableFuture<Model> updateModel(Model model, RequestPriority priority) {
+        return updateModel(model, priority, MAX_REDOWNLOAD_TRIES);
     }
 
     public CompletableFuture<Model> updateModel(Model model, int remainingTries) {
-        return repoSource.updateModel(model)
-            .thenApply(newModel -> {
-                boolean corruptedJson = false;
-                if (!model.equals(newModel)) {
-                    try {
-                        corruptedJson =
-                                jsonStore.saveRepository(newModel.getRepoId(), new SerializableModel(newModel)).get();
-                    } catch (InterruptedException | ExecutionException ex) {
-                        corruptedJson = true;
+        return updateModel(model, RequestPriority.VISIBLE, remainingTries);
+    }
+
+    private CompletableFuture<Model> updateModel(Model model, RequestPriority priority, int remainingTries) {
+        // Each step follows on from the last rather than waiting for it, so no thread is held up meanwhile
+        return repoSource.updateModel(model, priority)
+            .thenCompose(newModel -> storeUpdatedModel(model, newModel)
+                .thenCompose(corruptedJson -> {
+                    if (corruptedJson && remainingTries > 0) {
+                        return downloadRepoFromSourceAsync(model.getRepoId(), remainingTries - 1);
                     }
-                } else {
-                    logger.info(HTLog.format(model.getRepoId(),
-                            "Nothing changed; not writing to store"));
-                }
-                if (corruptedJson && remainingTries > 0) {
-                    return downloadRepoFromSourceAsync(model.getRepoId(), remainingTries - 1).join();
-                } else {
-                    if (corruptedJson && remainingTries == 0) {
+                    if (corruptedJson) {
                         UI.events.triggerEvent(new ShowErrorDialogEvent("Could not sync " + model.getRepoId(),
                                 "We were not able to sync with GitHub to retrieve and store data for the repository "
                                 + model.getRepoId()
@@ -151,9 +195,41 @@ public class RepoIO {
                         UI.status.displayMessage(model.getRepoId() + " is up to date!");
                     }
                     UI.events.triggerEvent(new UpdateProgressEvent(model.getRepoId()));
-                    return newModel;
-                }
-            }).exceptionally(withResult(new Model(model.getRepoId())));
+                    return CompletableFuture.completedFuture(newModel);
+                }))
+            .exceptionally(withResult(new Model(model.getRepoId())));
+    }
+
+    /**
+     * Writes an updated model to the store, unless nothing has changed.
+     * @return true if it could not be written, like RepoStore.saveRepository
+     */
+    private CompletableFuture<Boolean> storeUpdatedModel(Model model, Model newModel) {
+        if (model.equals(newModel)) {
+            logger.info(HTLog.format(model.getRepoId(), "Nothing changed; not writing to store"));
+            // What is stored stands for the new model too, so metadata inserted into it may be written
+            synchronized (lastStoredModels) {
+                lastStoredModels.replace(model.getRepoId().toLowerCase(), model, newModel);
+            }
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> saved;
+        synchronized (lastStoredModels) {
+            lastStoredModels.put(newModel.getRepoId().toLowerCase(), newModel);
+            saved = repoStore.saveRepository(newModel.getRepoId(), new SerializableModel(newModel));
+        }
+        return saved.exceptionally(e -> true);
+    }
+
+    public void setMetadataDownloadConcurrency(int concurrency) {
+        repoSource.setMetadataDownloadConcurrency(concurrency);
+    }
+
+    /**
+     * @return a description of how busy the source's threads are, e.g. for logging after a refresh
+     */
+    public String summariseSourcePool() {
+        return repoSource.summarisePool();
     }
 
     public CompletableFuture<Map<Integer, IssueMetadata>> getIssueMetadata(String repoId, List<TurboIssue> issues) {
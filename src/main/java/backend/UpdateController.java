@@ -1,5 +1,7 @@
 package backend;
 
+import backend.resource.Model;
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
 import backend.resource.TurboIssue;
 import filter.expression.FilterExpression;
@@ -13,13 +15,31 @@ import util.HTLog;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class UpdateController {
     private static final Logger logger = HTLog.get(UpdateController.class);
 
+    // Panels are filtered and sorted on this pool, so that refreshing many panels
+    // scales with the number of cores rather than the number of panels.
+    private static final ForkJoinPool FILTER_POOL =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    // Panels over more issues than this are themselves filtered and sorted in parallel
+    private static final int PARALLEL_FILTER_THRESHOLD = 5000;
+
     private final Logic logic;
 
+    // The results of the last time panels were processed, before their counts were applied,
+    // along with the models and default repository they were computed with. When only a few issues
+    // change between refreshes, these are patched instead of being recomputed from scratch.
+    private Map<FilterExpression, PanelResult> cachedResults = new HashMap<>();
+    private List<Model> cachedModels = new ArrayList<>();
+    private String cachedDefaultRepo = null;
+
     public UpdateController(Logic logic) {
         this.logic = logic;
     }
@@ -32,6 +52,21 @@ public class UpdateController {
      * @param filterExprs Filter expressions to process
      */
     public void filterSortRefresh(List<FilterExpression> filterExprs) {
+        filterSortRefresh(filterExprs, Optional.empty());
+    }
+
+    /**
+     * Like filterSortRefresh, but only reprocesses the issues which have changed according to the given deltas.
+     * Panels are processed in full if the deltas cannot be applied to the results of the last refresh.
+     *
+     * @param filterExprs Filter expressions to process
+     * @param deltas The changes to each repository's model since the last refresh
+     */
+    public void filterSortRefresh(List<FilterExpression> filterExprs, List<ModelDelta> deltas) {
+        filterSortRefresh(filterExprs, Optional.of(deltas));
+    }
+
+    private void filterSortRefresh(List<FilterExpression> filterExprs, Optional<List<ModelDelta>> deltas) {
         // Open specified repos
         openRepositoriesInFilters(filterExprs);
 
@@ -51,10 +86,10 @@ public class UpdateController {
                             + results.size() + " repos"))
                     .thenCompose(n -> logic.getRateLimitResetTime())
                     .thenApply(logic::updateRemainingRate)
-                    .thenRun(() -> logic.updateUI(processFilter(filterExprs))); // Then filter the second time.
+                    .thenRun(() -> logic.updateUI(processFilter(filterExprs, deltas))); // Then filter the second time.
         } else {
             // If no issues requiring metadata update, just run the filter and sort.
-            logic.updateUI(processFilter(filterExprs));
+            logic.updateUI(processFilter(filterExprs, deltas));
         }
     }
 
@@ -83,42 +118,198 @@ public class UpdateController {
         return filterExprs.stream()
                 .filter(Qualifier::hasUpdatedQualifier)
                 .flatMap(filterExpr -> allModelIssues.stream()
-                        .filter(issue -> Qualifier.process(models, filterExpr, issue)))
+                        .filter(Qualifier.compileFilter(models, filterExpr)))
                 .distinct()
                 .collect(Collectors.groupingBy(TurboIssue::getRepoId));
     }
 
     /**
      * Filters and sorts issues within the model according to the given filter expressions.
+     * Distinct filter expressions are processed concurrently on a bounded pool.
      *
      * @param filterExprs Filter expressions to process.
+     * @param deltas Changes to the model since the last time filter expressions were processed, if known.
      * @return Filter expressions and their corresponding issues after filtering, sorting and counting.
      */
-    private Map<FilterExpression, List<TurboIssue>> processFilter(List<FilterExpression> filterExprs) {
+    private synchronized Map<FilterExpression, List<TurboIssue>> processFilter(List<FilterExpression> filterExprs,
+                                                                              Optional<List<ModelDelta>> deltas) {
         MultiModel models = logic.getModels();
-        List<TurboIssue> allModelIssues = models.getIssues();
+        // Taken at once, so that the results are not cached with models older than the issues they came from
+        MultiModel.Snapshot snapshot = models.getSnapshot();
+        List<Model> currentModels = snapshot.models;
+        String defaultRepo = snapshot.defaultRepo;
+        List<TurboIssue> allModelIssues = snapshot.issues;
+
+        Optional<IssueChanges> changes =
+                deltas.flatMap(d -> findChangesSinceLastRefresh(currentModels, defaultRepo, d));
+        if (deltas.isPresent()) {
+            logger.info((changes.isPresent() ? "Patching panels with " : "Processing panels in full after ")
+                    + deltas.get());
+        }
+
+        // Identical filter expressions need only be processed once
+        List<FilterExpression> distinctFilterExprs = filterExprs.stream()
+                .distinct()
+                .collect(Collectors.toList());
 
+        List<PanelResult> results;
+        try {
+            // Parallel streams started from within the pool run on the pool.
+            // The results are collected in the same order as the filter expressions.
+            results = FILTER_POOL.submit(() -> distinctFilterExprs.parallelStream()
+                    .map(filterExpr -> changes.isPresent()
+                            ? patchOrFilterAndSort(models, allModelIssues, filterExpr, changes.get())
+                            : filterAndSort(models, allModelIssues, filterExpr))
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            HTLog.error(logger, e);
+            return new HashMap<>();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        // Results for other filter expressions remain valid only if the model has not changed since
+        Map<FilterExpression, PanelResult> newCachedResults =
+                isCacheCurrent(currentModels, defaultRepo) ? cachedResults : new HashMap<>();
         Map<FilterExpression, List<TurboIssue>> filteredSortedAndCounted = new HashMap<>();
+        for (int i = 0; i < distinctFilterExprs.size(); i++) {
+            PanelResult result = results.get(i);
+            newCachedResults.put(distinctFilterExprs.get(i), result);
+            filteredSortedAndCounted.put(distinctFilterExprs.get(i), result.count(allModelIssues));
+        }
+
+        cachedResults = newCachedResults;
+        cachedModels = currentModels;
+        cachedDefaultRepo = defaultRepo;
+        return filteredSortedAndCounted;
+    }
+
+    /**
+     * Filters and sorts issues within the model according to a single filter expression.
+     * Large sets of issues are split across the threads of the pool the caller is running on.
+     *
+     * @param models The model to evaluate the filter expression with.
+     * @param allModelIssues All the issues in the model.
+     * @param filterExpr The filter expression to process.
+     * @return The issues after filtering and sorting.
+     */
+    private PanelResult filterAndSort(MultiModel models, List<TurboIssue> allModelIssues,
+                                      FilterExpression filterExpr) {
+        boolean hasUpdatedQualifier = Qualifier.hasUpdatedQualifier(filterExpr);
 
-        filterExprs.forEach(filterExpr -> {
-            List<TurboIssue> filterAndSortedExpression = filteredSortedAndCounted.get(filterExpr);
+        FilterExpression filterExprNoAlias = Qualifier.replaceMilestoneAliases(models, filterExpr);
 
-            if (filterAndSortedExpression == null) { // If it already exists, no need to filter anymore
-                boolean hasUpdatedQualifier = Qualifier.hasUpdatedQualifier(filterExpr);
+        Stream<TurboIssue> issues = allModelIssues.size() > PARALLEL_FILTER_THRESHOLD
+                ? allModelIssues.parallelStream()
+                : allModelIssues.stream();
 
-                FilterExpression filterExprNoAlias = Qualifier.replaceMilestoneAliases(models, filterExpr);
+        return new PanelResult(filterExprNoAlias, issues
+                .filter(Qualifier.compileFilter(models, filterExprNoAlias))
+                .sorted(determineComparator(filterExprNoAlias, hasUpdatedQualifier))
+                .collect(Collectors.toList()));
+    }
 
-                List<TurboIssue> filteredSortedAndCountedIssues = allModelIssues.stream()
-                        .filter(issue -> Qualifier.process(models, filterExprNoAlias, issue))
-                        .sorted(determineComparator(filterExprNoAlias, hasUpdatedQualifier))
-                        .limit(Qualifier.determineCount(allModelIssues, filterExprNoAlias))
-                        .collect(Collectors.toList());
+    /**
+     * Brings the last result for a filter expression up to date with the given changes, or filters and sorts
+     * issues in full if that result may have been affected by something other than the changed issues.
+     *
+     * @param models The model to evaluate the filter expression with.
+     * @param allModelIssues All the issues in the model.
+     * @param filterExpr The filter expression to process.
+     * @param changes Changes to issues since the last result was computed.
+     * @return The issues after filtering and sorting.
+     */
+    private PanelResult patchOrFilterAndSort(MultiModel models, List<TurboIssue> allModelIssues,
+                                             FilterExpression filterExpr, IssueChanges changes) {
+        PanelResult lastResult = cachedResults.get(filterExpr);
+        if (lastResult == null || dependsOnTransientState(filterExpr)) {
+            return filterAndSort(models, allModelIssues, filterExpr);
+        }
 
-                filteredSortedAndCounted.put(filterExpr, filteredSortedAndCountedIssues);
+        // Milestone aliases may resolve differently, e.g. when a milestone becomes overdue
+        FilterExpression filterExprNoAlias = Qualifier.replaceMilestoneAliases(models, filterExpr);
+        if (!filterExprNoAlias.equals(lastResult.filterExprNoAlias)) {
+            return filterAndSort(models, allModelIssues, filterExpr);
+        }
+
+        if (changes.isEmpty()) {
+            return lastResult;
+        }
+        return new PanelResult(filterExprNoAlias, changes.applyTo(lastResult.sortedIssues,
+                Qualifier.compileFilter(models, filterExprNoAlias),
+                determineComparator(filterExprNoAlias, false)));
+    }
+
+    /**
+     * Works out which issues have changed since panels were last processed, by matching deltas against
+     * the models used at that time.
+     *
+     * @param currentModels The models as they are now.
+     * @param defaultRepo The current default repository.
+     * @param deltas The changes to each repository's model.
+     * @return The changes to issues, or nothing if the last results cannot be brought up to date by
+     * applying them alone.
+     */
+    private Optional<IssueChanges> findChangesSinceLastRefresh(List<Model> currentModels, String defaultRepo,
+                                                               List<ModelDelta> deltas) {
+        // Issues without an explicit repo qualifier are filtered by the default repo
+        if (!Objects.equals(defaultRepo, cachedDefaultRepo) || currentModels.size() != cachedModels.size()) {
+            return Optional.empty();
+        }
+
+        Map<String, Model> lastModels = cachedModels.stream()
+                .collect(Collectors.toMap(Model::getRepoId, model -> model));
+        Map<String, ModelDelta> deltasByRepo = new HashMap<>();
+        deltas.forEach(delta -> deltasByRepo.put(delta.getRepoId(), delta));
+
+        IssueChanges changes = new IssueChanges(currentModels);
+        for (Model current : currentModels) {
+            Model last = lastModels.get(current.getRepoId());
+            if (last == current) {
+                continue;
+            }
+            ModelDelta delta = deltasByRepo.get(current.getRepoId());
+            if (last == null || delta == null || delta.getBefore() != last || delta.getAfter() != current
+                    || delta.hasResourceChanges()) {
+                return Optional.empty();
             }
-        });
+            changes.add(delta);
+        }
+        return Optional.of(changes);
+    }
 
-        return filteredSortedAndCounted;
+    private boolean isCacheCurrent(List<Model> currentModels, String defaultRepo) {
+        if (!Objects.equals(defaultRepo, cachedDefaultRepo) || currentModels.size() != cachedModels.size()) {
+            return false;
+        }
+        for (int i = 0; i < currentModels.size(); i++) {
+            if (currentModels.get(i) != cachedModels.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if the issues matching a filter expression, or their order, may change without the
+     * model changing: when they depend on issue metadata, whether issues have been read, or the current time.
+     *
+     * @param filterExpr The filter expression to check.
+     * @return true if the filter expression should always be processed in full.
+     */
+    private static boolean dependsOnTransientState(FilterExpression filterExpr) {
+        return Qualifier.hasUpdatedQualifier(filterExpr)
+                || !filterExpr.find(q -> q.getType() == QualifierType.IS && q.getContent()
+                        .filter(content -> content.equals("read") || content.equals("unread"))
+                        .isPresent())
+                .isEmpty();
     }
 
     /**
@@ -146,4 +337,22 @@ public class UpdateController {
         // No sort or updated, return sort by descending ID, which is the default.
         return Qualifier.getSortComparator(models, "id", true, false);
     }
+
+    /**
+     * The issues matching a filter expression, in sorted order, before the count qualifier is applied.
+     */
+    private static class PanelResult {
+        private final FilterExpression filterExprNoAlias;
+        private final List<TurboIssue> sortedIssues;
+
+        private PanelResult(FilterExpression filterExprNoAlias, List<TurboIssue> sortedIssues) {
+            this.filterExprNoAlias = filterExprNoAlias;
+            this.sortedIssues = sortedIssues;
+        }
+
+        private List<TurboIssue> count(List<TurboIssue> allModelIssues) {
+            int count = Qualifier.determineCount(allModelIssues, filterExprNoAlias);
+            return new ArrayList<>(sortedIssues.subList(0, Math.min(count, sortedIssues.size())));
+        }
+    }
 }
@@ -0,0 +1,521 @@
+package backend.binary;
+
+import backend.IssueMetadata;
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import backend.resource.serialization.SerializableComment;
+import backend.resource.serialization.SerializableIssue;
+import backend.resource.serialization.SerializableIssueEvent;
+import backend.resource.serialization.SerializableIssueMetadata;
+import backend.resource.serialization.SerializableLabel;
+import backend.resource.serialization.SerializableMilestone;
+import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableUser;
+import github.IssueEventType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The binary format of the repo store.
+ *
+ * A file starts with a magic number and a format version, followed by the repo id, the update
+ * signature, and a dictionary of the label names and user logins used in the model. Labels, milestones,
+ * users and issues follow, in that order, referring to dictionary entries by index.
+ *
+ * Integers are written as variable-length quantities, so small ids and counts take a single byte.
+ * Timestamps are written as seconds since the epoch (UTC) plus nanoseconds.
+ * Strings are written as their length in UTF-8 bytes followed by the bytes; strings and dictionary
+ * references are offset by one so that 0 stands for null.
+ *
+ * Since version 2, issue descriptions are kept in a separate segment file, whose name follows the signature,
+ * and issues refer to them by length and offset. The segment is memory-mapped when a model is read,
+ * and descriptions are decoded from it only when they are needed.
+ *
+ * Since version 3, issues are followed by their metadata (events, comments and their ETags), if any.
+ */
+final class BinaryFormat {
+
+    private static final int MAGIC = 0x48545253; // "HTRS"
+    public static final int VERSION = 3;
+    private static final int VERSION_WITH_INLINE_DESCRIPTIONS = 1;
+    private static final int FIRST_VERSION_WITH_METADATA = 3;
+
+    private BinaryFormat() {}
+
+    @SuppressWarnings("unused")
+    private static void ______WRITING______() {}
+
+    /**
+     * Writes a model, with issue descriptions going to a separate segment.
+     * @param model the model to write
+     * @param segmentName the file name of the segment, relative to the main file
+     * @param out the main file
+     * @param segment the segment file
+     */
+    public static void write(SerializableModel model, String segmentName, DataOutputStream out,
+                             OutputStream segment) throws IOException {
+        Map<String, Integer> dictionary = buildDictionary(model);
+
+        out.writeInt(MAGIC);
+        writeVarInt(out, VERSION);
+        writeString(out, model.repoId);
+        writeSignature(out, model.updateSignature);
+        writeString(out, segmentName);
+
+        writeVarInt(out, dictionary.size());
+        String[] entries = new String[dictionary.size()];
+        dictionary.forEach((entry, index) -> entries[index] = entry);
+        for (String entry : entries) {
+            writeString(out, entry);
+        }
+
+        writeVarInt(out, model.labels.size());
+        for (SerializableLabel label : model.labels) {
+            writeReference(out, dictionary, label.getActualName());
+            writeString(out, label.getColour());
+        }
+
+        writeVarInt(out, model.milestones.size());
+        for (SerializableMilestone milestone : model.milestones) {
+            writeVarInt(out, milestone.getId());
+            writeString(out, milestone.getTitle());
+            Optional<LocalDate> dueDate = milestone.getDueDate() == null ? Optional.empty() : milestone.getDueDate();
+            out.writeBoolean(dueDate.isPresent());
+            if (dueDate.isPresent()) {
+                writeVarLong(out, dueDate.get().toEpochDay());
+            }
+            writeString(out, milestone.getDescription());
+            out.writeBoolean(milestone.isOpen());
+            writeVarInt(out, milestone.getOpenIssues());
+            writeVarInt(out, milestone.getClosedIssues());
+        }
+
+        writeVarInt(out, model.users.size());
+        for (SerializableUser user : model.users) {
+            writeReference(out, dictionary, user.getLoginName());
+            writeString(out, user.getRealName());
+            writeString(out, user.getAvatarURL());
+        }
+
+        long segmentOffset = 0;
+        writeVarInt(out, model.issues.size());
+        for (SerializableIssue issue : model.issues) {
+            writeVarInt(out, issue.getId());
+            writeString(out, issue.getTitle());
+            writeReference(out, dictionary, issue.getCreator());
+            writeDateTime(out, issue.getCreatedAt());
+            out.writeBoolean(issue.isPullRequest());
+            segmentOffset = writeSegmentString(out, segment, segmentOffset, issue.getDescription());
+            writeDateTime(out, issue.getUpdatedAt());
+            writeVarInt(out, issue.getCommentCount());
+            out.writeBoolean(issue.isOpen());
+            writeReference(out, dictionary, issue.getAssignee() == null ? null : issue.getAssignee().orElse(null));
+            writeVarInt(out, issue.getLabels().size());
+            for (String label : issue.getLabels()) {
+                writeReference(out, dictionary, label);
+            }
+            Optional<Integer> milestone = issue.getMilestone() == null ? Optional.empty() : issue.getMilestone();
+            out.writeBoolean(milestone.isPresent());
+            if (milestone.isPresent()) {
+                writeVarInt(out, milestone.get());
+            }
+            Optional<SerializableIssueMetadata> metadata = issue.getMetadata();
+            out.writeBoolean(metadata.isPresent());
+            if (metadata.isPresent()) {
+                writeMetadata(out, dictionary, metadata.get());
+            }
+        }
+    }
+
+    private static void writeMetadata(DataOutputStream out, Map<String, Integer> dictionary,
+                                      SerializableIssueMetadata metadata) throws IOException {
+        writeString(out, metadata.getEventsETag());
+        writeString(out, metadata.getCommentsETag());
+        writeReference(out, dictionary, metadata.getUser());
+        writeDateTime(out, metadata.getNonSelfUpdatedAt());
+
+        writeVarInt(out, metadata.getEvents().size());
+        for (SerializableIssueEvent event : metadata.getEvents()) {
+            writeReference(out, dictionary, event.getType().name());
+            writeReference(out, dictionary, event.getActor());
+            writeVarLong(out, event.getDate());
+            writeVarInt(out, event.getDetails().size());
+            for (String detail : event.getDetails()) {
+                writeString(out, detail);
+            }
+        }
+
+        writeVarInt(out, metadata.getComments().size());
+        for (SerializableComment comment : metadata.getComments()) {
+            writeVarLong(out, comment.getId());
+            writeReference(out, dictionary, comment.getUser());
+            writeVarLong(out, comment.getCreatedAt());
+            writeVarLong(out, comment.getUpdatedAt());
+            out.writeBoolean(comment.isReviewComment());
+        }
+    }
+
+    /**
+     * Collects the strings which are repeated across a model: label names, user logins
+     * and the types of issue events.
+     */
+    private static Map<String, Integer> buildDictionary(SerializableModel model) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        model.labels.forEach(label -> addEntry(dictionary, label.getActualName()));
+        model.users.forEach(user -> addEntry(dictionary, user.getLoginName()));
+        for (SerializableIssue issue : model.issues) {
+            addEntry(dictionary, issue.getCreator());
+            if (issue.getAssignee() != null) {
+                issue.getAssignee().ifPresent(assignee -> addEntry(dictionary, assignee));
+            }
+            issue.getLabels().forEach(label -> addEntry(dictionary, label));
+            issue.getMetadata().ifPresent(metadata -> {
+                addEntry(dictionary, metadata.getUser());
+                metadata.getEvents().forEach(event -> {
+                    addEntry(dictionary, event.getType().name());
+                    addEntry(dictionary, event.getActor());
+                });
+                metadata.getComments().forEach(comment -> addEntry(dictionary, comment.getUser()));
+            });
+        }
+        return dictionary;
+    }
+
+    private static void addEntry(Map<String, Integer> dictionary, String entry) {
+        if (entry != null) {
+            dictionary.putIfAbsent(entry, dictionary.size());
+        }
+    }
+
+    private static void writeSignature(DataOutputStream out, UpdateSignature signature) throws IOException {
+        writeString(out, signature.issuesETag);
+        writeString(out, signature.labelsETag);
+        writeString(out, signature.milestonesETag);
+        writeString(out, signature.collaboratorsETag);
+        out.writeLong(signature.lastCheckTime.getTime());
+    }
+
+    private static void writeReference(DataOutputStream out, Map<String, Integer> dictionary, String entry)
+            throws IOException {
+        writeVarInt(out, entry == null ? 0 : dictionary.get(entry) + 1);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * Appends a string to the segment, writing its length and offset to the main file.
+     * @return the offset in the segment following the string
+     */
+    private static long writeSegmentString(DataOutputStream out, OutputStream segment, long offset, String value)
+            throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return offset;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (offset + bytes.length > Integer.MAX_VALUE) {
+            throw new IOException("Description segment is too large to be mapped");
+        }
+        writeVarInt(out, bytes.length + 1);
+        writeVarInt(out, (int) offset);
+        segment.write(bytes);
+        return offset + bytes.length;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeBoolean(dateTime != null);
+        if (dateTime != null) {
+            writeVarLong(out, dateTime.toEpochSecond(ZoneOffset.UTC));
+            writeVarInt(out, dateTime.getNano());
+        }
+    }
+
+    /**
+     * Writes the bits of an int 7 at a time, least significant first, setting the high bit of
+     * every byte but the last. Negative values take five bytes.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Writes a long as a zigzag-encoded variable-length quantity, so that small negative values stay small.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    @SuppressWarnings("unused")
+    private static void ______READING______() {}
+
+    /**
+     * Reads only as far as the repo id of a stored model.
+     */
+    public static String readRepoId(DataInputStream in) throws IOException {
+        readHeader(in);
+        return readString(in);
+    }
+
+    /**
+     * Reads a model, mapping its description segment if it has one.
+     * @param in the main file
+     * @param directory the directory containing the main file
+     */
+    public static Model read(DataInputStream in, Path directory) throws IOException {
+        int version = readHeader(in);
+        String repoId = readString(in);
+        UpdateSignature signature = readSignature(in);
+        Optional<ByteBuffer> segment = version == VERSION_WITH_INLINE_DESCRIPTIONS
+                ? Optional.empty()
+                : Optional.of(mapSegment(directory, readString(in)));
+
+        String[] dictionary = new String[readVarInt(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+
+        int labelCount = readVarInt(in);
+        List<TurboLabel> labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            String name = readReference(in, dictionary);
+            labels.add(new TurboLabel(repoId, readString(in), name));
+        }
+
+        int milestoneCount = readVarInt(in);
+        List<TurboMilestone> milestones = new ArrayList<>(milestoneCount);
+        for (int i = 0; i < milestoneCount; i++) {
+            TurboMilestone milestone = new TurboMilestone(repoId, readVarInt(in), readString(in));
+            milestone.setDueDate(in.readBoolean()
+                ? Optional.of(LocalDate.ofEpochDay(readVarLong(in)))
+                : Optional.empty());
+            milestone.setDescription(readString(in));
+            milestone.setOpen(in.readBoolean());
+            milestone.setOpenIssues(readVarInt(in));
+            milestone.setClosedIssues(readVarInt(in));
+            milestones.add(milestone);
+        }
+
+        int userCount = readVarInt(in);
+        List<TurboUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new TurboUser(repoId, readReference(in, dictionary), readString(in), readString(in)));
+        }
+
+        int issueCount = readVarInt(in);
+        List<TurboIssue> issues = new ArrayList<>(issueCount);
+        for (int i = 0; i < issueCount; i++) {
+            int id = readVarInt(in);
+            String title = readString(in);
+            String creator = readReference(in, dictionary);
+            LocalDateTime createdAt = readDateTime(in);
+            boolean isPullRequest = in.readBoolean();
+
+            TurboIssue issue = new TurboIssue(repoId, id, title, creator, createdAt, isPullRequest);
+            if (segment.isPresent()) {
+                readSegmentString(in, segment.get(), issue);
+            } else {
+                issue.setDescription(readString(in));
+            }
+            issue.setUpdatedAt(readDateTime(in));
+            issue.setCommentCount(readVarInt(in));
+            issue.setOpen(in.readBoolean());
+            String assignee = readReference(in, dictionary);
+            if (assignee != null) {
+                issue.setAssignee(assignee);
+            }
+            int issueLabelCount = readVarInt(in);
+            List<String> issueLabels = new ArrayList<>(issueLabelCount);
+            for (int j = 0; j < issueLabelCount; j++) {
+                issueLabels.add(readReference(in, dictionary));
+            }
+            issue.setLabels(issueLabels);
+            if (in.readBoolean()) {
+                issue.setMilestone(readVarInt(in));
+            }
+            if (version >= FIRST_VERSION_WITH_METADATA && in.readBoolean()) {
+                issue.setMetadata(IssueMetadata.fromSerializable(readMetadata(in, dictionary)));
+            }
+            issues.add(issue);
+        }
+
+        return new Model(repoId, issues, labels, milestones, users, signature);
+    }
+
+    private static int readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary repo store file");
+        }
+        int version = readVarInt(in);
+        if (version < VERSION_WITH_INLINE_DESCRIPTIONS || version > VERSION) {
+            throw new IOException("Unsupported binary repo store version " + version);
+        }
+        return version;
+    }
+
+    private static SerializableIssueMetadata readMetadata(DataInputStream in, String[] dictionary)
+            throws IOException {
+        String eventsETag = readString(in);
+        String commentsETag = readString(in);
+        String user = readReference(in, dictionary);
+        LocalDateTime nonSelfUpdatedAt = readDateTime(in);
+
+        int eventCount = readVarInt(in);
+        List<SerializableIssueEvent> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            String type = readReference(in, dictionary);
+            if (type == null) {
+                throw new IOException("Missing event type");
+            }
+            String actor = readReference(in, dictionary);
+            long date = readVarLong(in);
+            int detailCount = readVarInt(in);
+            List<String> details = new ArrayList<>(detailCount);
+            for (int j = 0; j < detailCount; j++) {
+                details.add(readString(in));
+            }
+            events.add(new SerializableIssueEvent(IssueEventType.valueOf(type), actor, date, details));
+        }
+
+        int commentCount = readVarInt(in);
+        List<SerializableComment> comments = new ArrayList<>(commentCount);
+        for (int i = 0; i < commentCount; i++) {
+            comments.add(new SerializableComment(readVarLong(in), readReference(in, dictionary),
+                                                 readVarLong(in), readVarLong(in), in.readBoolean()));
+        }
+
+        return new SerializableIssueMetadata(events, comments, eventsETag, commentsETag, user, nonSelfUpdatedAt);
+    }
+
+    private static ByteBuffer mapSegment(Path directory, String segmentName) throws IOException {
+        if (segmentName == null || !segmentName.equals(String.valueOf(Paths.get(segmentName).getFileName()))) {
+            throw new IOException("Invalid description segment " + segmentName);
+        }
+        // The mapping remains valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(directory.resolve(segmentName), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void readSegmentString(DataInputStream in, ByteBuffer segment, TurboIssue issue)
+            throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            issue.setDescription(null);
+            return;
+        } else if (length < 0) {
+            throw new IOException("Malformed string length");
+        }
+        int offset = readVarInt(in);
+        if (offset < 0 || length - 1 > segment.limit() - offset) {
+            throw new IOException("Description out of range of segment");
+        }
+        if (length == 1) {
+            issue.setDescription("");
+        } else {
+            issue.setDescriptionSource(new MappedText(segment, offset, length - 1));
+        }
+    }
+
+    private static UpdateSignature readSignature(DataInputStream in) throws IOException {
+        String issuesETag = readString(in);
+        String labelsETag = readString(in);
+        String milestonesETag = readString(in);
+        String collaboratorsETag = readString(in);
+        Date lastCheckTime = new Date(in.readLong());
+        return new UpdateSignature(issuesETag, labelsETag, milestonesETag, collaboratorsETag, lastCheckTime);
+    }
+
+    private static String readReference(DataInputStream in, String[] dictionary) throws IOException {
+        int reference = readVarInt(in);
+        if (reference == 0) {
+            return null;
+        }
+        if (reference > dictionary.length) {
+            throw new IOException("Dictionary reference out of range: " + reference);
+        }
+        return dictionary[reference - 1];
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        } else if (length < 0) {
+            throw new IOException("Malformed string length");
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = readVarLong(in);
+        return LocalDateTime.ofEpochSecond(epochSecond, readVarInt(in), ZoneOffset.UTC);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length int");
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Malformed variable-length long");
+    }
+}
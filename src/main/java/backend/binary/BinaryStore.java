@@ -0,0 +1,167 @@
+package backend.binary;
+
+import backend.DownloadCheckpoint;
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.Utility;
+import util.exceptions.RepoStoreException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.io.Files.getFileExtension;
+import static com.google.common.io.Files.getNameWithoutExtension;
+
+/**
+ * A repo store which keeps repositories in a compact binary format (see BinaryFormat), which is
+ * smaller than JSON and is read without reflection. Issue descriptions are kept in separate segment
+ * files, which are memory-mapped rather than read into the heap.
+ *
+ * Repositories left in the store directory as JSON are migrated the first time stored repositories
+ * are listed, after which the JSON files are removed.
+ */
+public class BinaryStore extends RepoStore {
+
+    private static final Logger logger = HTLog.get(BinaryStore.class);
+
+    public static final String EXTENSION = "bin";
+    private static final String SEGMENT_EXTENSION = "bodies";
+
+    @Override
+    public CompletableFuture<Model> loadRepository(String repoId) {
+        CompletableFuture<Model> response = new CompletableFuture<>();
+        addTask(new ReadTask(repoId, response));
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveRepository(String repoId, SerializableModel model) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new WriteTask(repoId, model, response));
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removeStoredRepo(String repoId) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new DeleteTask(repoId, response));
+        return response;
+    }
+
+    @Override
+    public List<String> getStoredRepos() {
+        migrateFromJSON();
+
+        ensureDirectoryExists();
+        try {
+            return Files.walk(Paths.get(RepoStore.directory), 1)
+                    .filter(Files::isRegularFile)
+                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase(EXTENSION))
+                    .map(BinaryStore::getRepositoryIdFromBinary)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.error("Unable to open stored repository directory. ");
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Download checkpoints are short-lived, so they are kept as JSON rather than in the binary format.
+     */
+    @Override
+    protected boolean writeCheckpoint(DownloadCheckpoint checkpoint) {
+        return JSONStore.writeCheckpointFile(checkpoint);
+    }
+
+    @Override
+    protected Optional<DownloadCheckpoint> readCheckpoint(String repoId) {
+        return JSONStore.readCheckpointFile(repoId);
+    }
+
+    static Optional<String> getBinaryRepoPath(String repoId) {
+        return getRepoPath(repoId, EXTENSION);
+    }
+
+    /**
+     * Gets the path of a description segment (see BinaryFormat) of a stored repository.
+     * @param repoPath the path of the repository's binary file
+     * @param generation distinguishes the segments of successive writes
+     */
+    static Path getSegmentPath(Path repoPath, long generation) {
+        return repoPath.resolveSibling(getSegmentBaseName(repoPath) + "." + generation + "." + SEGMENT_EXTENSION);
+    }
+
+    /**
+     * Lists the description segments currently present for a stored repository.
+     */
+    static List<Path> getSegmentPaths(Path repoPath) {
+        Pattern segmentName = Pattern.compile(
+                Pattern.quote(getSegmentBaseName(repoPath)) + "\\.\\d+\\." + SEGMENT_EXTENSION);
+        Path directory = repoPath.toAbsolutePath().getParent();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> segmentName.matcher(String.valueOf(p.getFileName())).matches())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.error("Unable to list description segments in " + directory);
+            return new ArrayList<>();
+        }
+    }
+
+    private static String getSegmentBaseName(Path repoPath) {
+        return getNameWithoutExtension(String.valueOf(repoPath.getFileName()));
+    }
+
+    /**
+     * Converts repositories stored as JSON to the binary format, on the calling thread.
+     * JSON files are removed once their repositories have been written successfully; those which
+     * cannot be read are left in place, and their repositories will be downloaded again when opened.
+     */
+    private static void migrateFromJSON() {
+        for (String repoId : JSONStore.findStoredRepos()) {
+            try {
+                Model model = JSONStore.loadStoredRepo(repoId);
+                boolean failed = WriteTask.save(repoId, new SerializableModel(model));
+                if (failed) {
+                    logger.error(HTLog.format(repoId, "Unable to migrate from JSON to binary store"));
+                } else {
+                    Utility.deleteFile(getRepoPath(repoId, "json").orElse(""));
+                    logger.info(HTLog.format(repoId, "Migrated from JSON to binary store"));
+                }
+            } catch (RepoStoreException e) {
+                logger.error(HTLog.format(repoId, "Unable to migrate from JSON to binary store"));
+            }
+        }
+    }
+
+    private static Optional<String> getRepositoryIdFromBinary(Path p) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(p)))) {
+            String repoId = BinaryFormat.readRepoId(in);
+            if (repoId != null
+                    && String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId, EXTENSION))) {
+                logger.info("Adding " + p.getFileName() + " to stored repository list. ");
+                return Optional.of(repoId);
+            }
+        } catch (IOException e) {
+            logger.error("Unable to load repository from " + p.getFileName());
+        }
+        return Optional.empty();
+    }
+}
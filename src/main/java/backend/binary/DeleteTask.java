@@ -0,0 +1,28 @@
+package backend.binary;
+
+import backend.interfaces.StoreTask;
+import util.Utility;
+
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+class DeleteTask extends StoreTask {
+    public final CompletableFuture<Boolean> response;
+
+    protected DeleteTask(String repoId, CompletableFuture<Boolean> response) {
+        super(repoId);
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        Optional<String> path = BinaryStore.getBinaryRepoPath(repoId);
+        boolean deleted = Utility.deleteFile(path.orElse(""));
+        if (path.isPresent()) {
+            BinaryStore.getSegmentPaths(Paths.get(path.get()))
+                    .forEach(segment -> Utility.deleteFile(segment.toString()));
+        }
+        response.complete(deleted);
+    }
+}
@@ -0,0 +1,47 @@
+package backend.binary;
+
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * A string stored in a memory-mapped description segment, decoded when it is first requested.
+ * Filters ask for bodies of every issue on every refresh, so the decoded string is kept, but only
+ * softly: bodies which are never displayed or filtered on do not occupy the heap, and those which
+ * are may be reclaimed under memory pressure, to be decoded again when next requested.
+ */
+final class MappedText implements Supplier<String> {
+
+    private final ByteBuffer segment;
+    private final int offset;
+    private final int length;
+
+    private volatile SoftReference<String> decoded = new SoftReference<>(null);
+
+    MappedText(ByteBuffer segment, int offset, int length) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public String get() {
+        String text = decoded.get();
+        if (text == null) {
+            // Racing threads may both decode, but they arrive at equal strings
+            text = decode();
+            decoded = new SoftReference<>(text);
+        }
+        return text;
+    }
+
+    private String decode() {
+        // Duplicates share the mapping but not the position, so concurrent reads are safe
+        ByteBuffer view = segment.duplicate();
+        view.position(offset);
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
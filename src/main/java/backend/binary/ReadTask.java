@@ -0,0 +1,69 @@
+package backend.binary;
+
+import backend.interfaces.StoreTask;
+import backend.resource.Model;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.BinaryLoadException;
+import util.exceptions.RepoStoreException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+class ReadTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(ReadTask.class);
+
+    public final CompletableFuture<Model> response;
+
+    public ReadTask(String repoId, CompletableFuture<Model> response) {
+        super(repoId);
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Model model = load(repoId);
+            response.complete(model);
+        } catch (RepoStoreException e) {
+            logger.error(HTLog.format(repoId, "Unable to load from store"));
+            response.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Loads repository data from the binary store into a new Model.
+     * @param repoId the string id of the repository to be loaded
+     * @return a new Model containing data for the requested repository.
+     * @throws BinaryLoadException when the repository's data cannot be
+     *         retrieved from the local store or is corrupted
+     */
+    static Model load(String repoId) throws RepoStoreException {
+        Optional<String> path = BinaryStore.getBinaryRepoPath(repoId);
+        if (!path.isPresent()) {
+            logger.error("Unable to load " + repoId + " from binary store");
+            throw new BinaryLoadException();
+        }
+
+        Path file = Paths.get(path.get());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Model model = BinaryFormat.read(in, file.toAbsolutePath().getParent());
+            logger.info(HTLog.format(repoId, "Data loaded from binary store"));
+            return model;
+        } catch (NoSuchFileException e) {
+            logger.error("Unable to load " + repoId + " from binary store");
+            throw new BinaryLoadException(e);
+        } catch (IOException | RuntimeException e) {
+            logger.error(HTLog.format(repoId, "Binary data is corrupted"));
+            throw new BinaryLoadException(e);
+        }
+    }
+}
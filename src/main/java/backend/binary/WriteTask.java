@@ -0,0 +1,92 @@
+package backend.binary;
+
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+class WriteTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(WriteTask.class);
+
+    public final SerializableModel toSave;
+    public final CompletableFuture<Boolean> response;
+
+    public WriteTask(String repoName, SerializableModel toSave, CompletableFuture<Boolean> response) {
+        super(repoName);
+        this.toSave = toSave;
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        response.complete(save(repoId, toSave));
+    }
+
+    /**
+     * Writes a model to a temporary file, which then replaces the stored one, so that a failed
+     * write never leaves a partially-written model in the store.
+     *
+     * Issue descriptions go to a new segment file, written before the model which refers to it.
+     * Segments of earlier writes are then removed, unless they are still mapped by a loaded model
+     * and the platform does not allow that, in which case they are removed by a later write.
+     * @return true on failure, like JSON corruption for the JSON store
+     */
+    static boolean save(String repoId, SerializableModel model) {
+        Optional<String> path = BinaryStore.getBinaryRepoPath(repoId);
+        if (!path.isPresent()) {
+            logger.error(HTLog.format(repoId, "Unable to write to binary store"));
+            return true;
+        }
+
+        Path target = Paths.get(path.get());
+        Path temp = Paths.get(path.get() + ".tmp");
+        Path segment = newSegmentPath(target);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)));
+                 OutputStream segmentOut = new BufferedOutputStream(Files.newOutputStream(segment))) {
+                BinaryFormat.write(model, String.valueOf(segment.getFileName()), out, segmentOut);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            logger.info(HTLog.format(repoId, "Written to binary store"));
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            deleteQuietly(segment);
+            return true;
+        }
+
+        BinaryStore.getSegmentPaths(target).stream()
+                .filter(p -> !p.getFileName().equals(segment.getFileName()))
+                .forEach(WriteTask::deleteQuietly);
+        return false;
+    }
+
+    private static Path newSegmentPath(Path target) {
+        long generation = System.currentTimeMillis();
+        Path segment;
+        do {
+            segment = BinaryStore.getSegmentPath(target, generation++);
+        } while (Files.exists(segment));
+        return segment;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.info("Unable to remove " + path.getFileName() + " yet");
+        }
+    }
+}
@@ -12,6 +12,12 @@ public class CheckRateLimitTask extends GitHubRepoTask<ImmutablePair<Integer, Lo
         super(taskRunner, repo);
     }
 
+    // Checking the rate limit does not count towards it
+    @Override
+    public int getEstimatedRequests() {
+        return 0;
+    }
+
     @Override
     public void run() {
         try {
@@ -2,6 +2,7 @@ package backend.github;
 
 import backend.IssueMetadata;
 import backend.interfaces.Repo;
+import backend.interfaces.RequestPriority;
 import backend.interfaces.TaskRunner;
 import backend.resource.TurboIssue;
 import github.TurboIssueEvent;
@@ -13,27 +14,91 @@ import util.HTLog;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
+/**
+ * Downloads the events and comments of a number of issues. Issues are shared out among up to
+ * a given number of workers, which run on the task runner, so that their requests overlap.
+ */
 public class DownloadMetadataTask extends GitHubRepoTask<Map<Integer, IssueMetadata>> {
 
     private static final Logger logger = HTLog.get(DownloadMetadataTask.class);
 
+    // An events request, and at most two comment requests for a pull request
+    private static final int MAX_REQUESTS_PER_ISSUE = 3;
+
     private final String repoId;
     private final List<TurboIssue> issuesToUpdate;
+    private final int concurrency;
 
     public DownloadMetadataTask(TaskRunner taskRunner, Repo repo, String repoId,
-                                List<TurboIssue> issuesToUpdate) {
+                                List<TurboIssue> issuesToUpdate, int concurrency) {
         super(taskRunner, repo);
         this.repoId = repoId;
         this.issuesToUpdate = issuesToUpdate;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    @Override
+    public RequestPriority getPriority() {
+        return RequestPriority.METADATA;
+    }
+
+    @Override
+    public int getEstimatedRequests() {
+        return issuesToUpdate.size() * MAX_REQUESTS_PER_ISSUE;
     }
 
     @Override
     public void run() {
-        Map<Integer, IssueMetadata> result = new HashMap<>();
+        Map<Integer, IssueMetadata> result = new ConcurrentHashMap<>();
+        Queue<TurboIssue> remainingIssues = new ConcurrentLinkedQueue<>(issuesToUpdate);
+
+        int workerCount = getWorkerCount();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = CompletableFuture.runAsync(() -> downloadMetadata(remainingIssues, result),
+                                                    taskRunner::execute);
+        }
+
+        // The response is completed by the last worker to finish, so no thread waits on the others
+        CompletableFuture.allOf(workers).whenComplete((ignored, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                logger.error(cause.getLocalizedMessage(), cause);
+                response.completeExceptionally(cause);
+                return;
+            }
 
-        issuesToUpdate.forEach(issue -> {
+            logger.info(HTLog.format(repoId, "Downloaded " + result.entrySet().stream()
+                .map(entry -> "(" + entry.getValue().summarise() + ") for #" + entry.getKey())
+                .collect(Collectors.joining(", "))));
+
+            response.complete(new HashMap<>(result));
+        });
+    }
+
+    /**
+     * Uses the given number of workers, but only one when the rate limit last reported leaves too few
+     * requests for all the issues, so that concurrent requests do not overshoot it.
+     */
+    private int getWorkerCount() {
+        int remainingRequests = repo.getRemainingRequests();
+        if (remainingRequests >= 0 && remainingRequests < issuesToUpdate.size() * MAX_REQUESTS_PER_ISSUE) {
+            logger.info(HTLog.format(repoId, "Downloading metadata sequentially as the rate limit is near"));
+            return 1;
+        }
+        return Math.max(1, Math.min(concurrency, issuesToUpdate.size()));
+    }
+
+    private void downloadMetadata(Queue<TurboIssue> remainingIssues, Map<Integer, IssueMetadata> result) {
+        TurboIssue issue;
+        while ((issue = remainingIssues.poll()) != null) {
             String currEventsETag = issue.getMetadata().getEventsETag();
             String currCommentsETag = issue.getMetadata().getCommentsETag();
             int id = issue.getId();
@@ -43,16 +108,11 @@ public class DownloadMetadataTask extends GitHubRepoTask<Map<Integer, IssueMetad
             List<TurboIssueEvent> events = changes.getLeft();
             String updatedEventsETag = changes.getRight();
 
-            List<Comment> comments = repo.getAllComments(repoId, issue);
+            ImmutablePair<List<Comment>, String> comments = repo.getUpdatedComments(repoId, issue, currCommentsETag);
 
-            IssueMetadata metadata = IssueMetadata.intermediate(events, comments, updatedEventsETag, currCommentsETag);
+            IssueMetadata metadata = IssueMetadata.intermediate(events, comments.getLeft(),
+                                                                updatedEventsETag, comments.getRight());
             result.put(id, metadata);
-        });
-
-        logger.info(HTLog.format(repoId, "Downloaded " + result.entrySet().stream()
-            .map(entry -> "(" + entry.getValue().summarise() + ") for #" + entry.getKey())
-            .collect(Collectors.joining(", "))));
-
-        response.complete(result);
+        }
     }
 }
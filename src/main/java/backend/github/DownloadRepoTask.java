@@ -1,33 +1,260 @@
 package backend.github;
 
+import backend.DownloadCheckpoint;
 import backend.UpdateSignature;
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
 import backend.resource.*;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
+import ui.UI;
 import util.HTLog;
+import util.events.UpdateProgressEvent;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+/**
+ * Downloads a repository from scratch. Labels, milestones and collaborators are downloaded
+ * while the issues are. Once the first page of issues tells how many pages there are, the rest
+ * are shared out among up to a given number of workers, which run on the task runner, and are
+ * put back in order when all have been downloaded.
+ *
+ * Every few pages, the issues downloaded so far are passed on as a checkpoint, so that if the
+ * download is interrupted, it can be resumed from the page after the last checkpoint.
+ */
 public class DownloadRepoTask extends GitHubRepoTask<Model> {
 
     private static final Logger logger = HTLog.get(DownloadRepoTask.class);
 
+    public static final int DEFAULT_PAGE_DOWNLOAD_CONCURRENCY = 4;
+    // The number of pages downloaded between checkpoints, which rewrite all issues downloaded so far
+    private static final int CHECKPOINT_INTERVAL = 10;
+    // One for each of labels, milestones and collaborators, and the pages of issues up to the first
+    // checkpoint. How many pages there are is not known until the first has been downloaded; if the
+    // remaining requests are then too few for all of them, they are downloaded one at a time (see getWorkerCount).
+    private static final int ESTIMATED_REQUESTS = 3 + CHECKPOINT_INTERVAL;
+
     private final String repoId;
+    private final Optional<DownloadCheckpoint> resumeFrom;
+    private final Consumer<DownloadCheckpoint> onCheckpoint;
+    private final int concurrency;
+
+    // The issues and pages from the checkpoint resumed from, if any
+    private final List<TurboIssue> resumedIssues;
+    private final int resumedPages;
+    private final Date startTime;
+
+    // Pages downloaded in this run, by their 1-based number
+    private final Map<Integer, List<TurboIssue>> pages = new ConcurrentHashMap<>();
+    private final AtomicInteger loadedIssues = new AtomicInteger();
+    private final AtomicReference<IOException> pageError = new AtomicReference<>();
+    private int lastPage = 1;
+    private int checkpointedPages;
 
     public DownloadRepoTask(TaskRunner taskRunner, Repo repo, String repoId) {
+        this(taskRunner, repo, repoId, Optional.empty(), checkpoint -> {});
+    }
+
+    public DownloadRepoTask(TaskRunner taskRunner, Repo repo, String repoId,
+                            Optional<DownloadCheckpoint> resumeFrom, Consumer<DownloadCheckpoint> onCheckpoint) {
+        this(taskRunner, repo, repoId, resumeFrom, onCheckpoint, DEFAULT_PAGE_DOWNLOAD_CONCURRENCY);
+    }
+
+    public DownloadRepoTask(TaskRunner taskRunner, Repo repo, String repoId,
+                            Optional<DownloadCheckpoint> resumeFrom, Consumer<DownloadCheckpoint> onCheckpoint,
+                            int concurrency) {
         super(taskRunner, repo);
         this.repoId = repoId;
+        this.resumeFrom = resumeFrom;
+        this.onCheckpoint = onCheckpoint;
+        this.concurrency = Math.max(1, concurrency);
+
+        this.resumedIssues = resumeFrom.map(checkpoint -> checkpoint.issues).orElseGet(ArrayList::new);
+        this.resumedPages = resumeFrom.map(checkpoint -> checkpoint.completedPages).orElse(0);
+        this.startTime = resumeFrom.map(checkpoint -> checkpoint.startTime).orElseGet(Date::new);
+        this.checkpointedPages = resumedPages;
+    }
+
+    @Override
+    public int getEstimatedRequests() {
+        return ESTIMATED_REQUESTS;
     }
 
     @Override
     public void run() {
-        List<TurboIssue> issues = repo.getIssues(repoId);
-        List<TurboLabel> labels = repo.getLabels(repoId);
-        List<TurboMilestone> milestones = repo.getMilestones(repoId);
-        List<TurboUser> users = repo.getCollaborators(repoId);
-        Model result = new Model(repoId, issues, labels, milestones, users, UpdateSignature.EMPTY);
-        logger.info(HTLog.format(repoId, "Downloaded " + result.summarise()));
-        response.complete(result);
+        CompletableFuture<List<TurboLabel>> labels =
+            CompletableFuture.supplyAsync(() -> repo.getLabels(repoId), taskRunner::execute);
+        CompletableFuture<List<TurboMilestone>> milestones =
+            CompletableFuture.supplyAsync(() -> repo.getMilestones(repoId), taskRunner::execute);
+        CompletableFuture<List<TurboUser>> users =
+            CompletableFuture.supplyAsync(() -> repo.getCollaborators(repoId), taskRunner::execute);
+        CompletableFuture<List<TurboIssue>> issues = downloadIssues();
+
+        // The response is completed by whichever download finishes last, so no thread waits on the others
+        CompletableFuture.allOf(labels, milestones, users, issues).whenComplete((ignored, e) -> {
+            if (e != null) {
+                // The download is resumed from the last checkpoint the next time the repository is opened
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                logger.error(cause.getLocalizedMessage(), cause);
+                response.completeExceptionally(cause);
+                triggerProgressEvent(new UpdateProgressEvent(repoId));
+                return;
+            }
+
+            // A resumed download may have missed changes made while it was interrupted
+            UpdateSignature updateSignature = resumeFrom.isPresent()
+                ? resumeFrom.get().getUpdateSignature()
+                : UpdateSignature.EMPTY;
+            Model result = new Model(repoId, issues.join(), labels.join(), milestones.join(), users.join(),
+                updateSignature);
+            logger.info(HTLog.format(repoId, "Downloaded " + result.summarise()));
+            response.complete(result);
+            triggerProgressEvent(new UpdateProgressEvent(repoId));
+        });
+    }
+
+    private CompletableFuture<List<TurboIssue>> downloadIssues() {
+        if (resumeFrom.isPresent()) {
+            logger.info(HTLog.format(repoId, "Resuming download after %d page(s) of issues", resumedPages));
+        }
+
+        int firstPage = resumedPages + 1;
+        ImmutablePair<List<TurboIssue>, Integer> first;
+        try {
+            first = repo.getIssuesPage(repoId, firstPage);
+        } catch (IOException e) {
+            return failed(e);
+        }
+
+        lastPage = Math.max(firstPage, first.getRight());
+        loadedIssues.set(resumedIssues.size());
+        addPage(firstPage, first.getLeft());
+
+        Queue<Integer> remainingPages = new ConcurrentLinkedQueue<>();
+        IntStream.rangeClosed(firstPage + 1, lastPage).forEach(remainingPages::add);
+
+        int workerCount = getWorkerCount(remainingPages.size());
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = CompletableFuture.runAsync(() -> downloadPages(remainingPages), taskRunner::execute);
+        }
+
+        return CompletableFuture.allOf(workers).thenCompose(ignored -> {
+            if (pageError.get() != null) {
+                // Keep whatever has been downloaded without a gap, however little
+                checkpoint(true);
+                return failed(pageError.get());
+            }
+            return CompletableFuture.completedFuture(reassemble(lastPage));
+        });
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(e);
+        return result;
+    }
+
+    /**
+     * Uses the given number of workers, but only one when the rate limit last reported leaves too few
+     * requests for all the pages, so that concurrent requests do not overshoot it.
+     */
+    private int getWorkerCount(int pageCount) {
+        int remainingRequests = repo.getRemainingRequests();
+        if (remainingRequests >= 0 && remainingRequests < pageCount) {
+            logger.info(HTLog.format(repoId, "Downloading issues sequentially as the rate limit is near"));
+            return 1;
+        }
+        return Math.max(1, Math.min(concurrency, pageCount));
+    }
+
+    private void downloadPages(Queue<Integer> remainingPages) {
+        Integer page;
+        while ((page = remainingPages.poll()) != null) {
+            try {
+                addPage(page, repo.getIssuesPage(repoId, page).getLeft());
+            } catch (IOException e) {
+                // The remaining pages would only leave a gap, so the download stops here
+                pageError.compareAndSet(null, e);
+                remainingPages.clear();
+            }
+        }
+    }
+
+    private void addPage(int page, List<TurboIssue> issues) {
+        pages.put(page, issues);
+        reportProgress(loadedIssues.addAndGet(issues.size()));
+        checkpoint(false);
+    }
+
+    private void reportProgress(int loaded) {
+        float progress = Math.min(1, (float) (resumedPages + pages.size()) / (float) lastPage);
+        triggerProgressEvent(new UpdateProgressEvent(repoId, progress));
+        logger.info(HTLog.format(repoId, "Loaded %d issues (%.0f%% done)", loaded, progress * 100));
+    }
+
+    private static void triggerProgressEvent(UpdateProgressEvent event) {
+        if (UI.events == null) {
+            // UI isn't initialised
+            return;
+        }
+        UI.events.triggerEvent(event);
+    }
+
+    /**
+     * Passes on a checkpoint once enough pages following the last one have been downloaded, or if forced,
+     * once any have. Pages may arrive out of order, so only those following on from it without a gap count.
+     */
+    private synchronized void checkpoint(boolean isForced) {
+        int completedPages = checkpointedPages;
+        while (pages.containsKey(completedPages + 1)) {
+            completedPages++;
+        }
+        int newPages = completedPages - checkpointedPages;
+        if (newPages == 0 || !isForced && (newPages < CHECKPOINT_INTERVAL || completedPages == lastPage)) {
+            // The last page is not checkpointed, as the whole repository is about to be stored
+            return;
+        }
+        checkpointedPages = completedPages;
+        onCheckpoint.accept(new DownloadCheckpoint(repoId, reassemble(completedPages), completedPages, startTime));
+    }
+
+    /**
+     * Puts the pages up to the given one back in order, after the issues of the checkpoint resumed from.
+     * Issues opened during the download push others onto later pages, so an issue may have been
+     * downloaded twice; only its first occurrence is kept.
+     */
+    private List<TurboIssue> reassemble(int lastPage) {
+        List<TurboIssue> issues = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (TurboIssue issue : resumedIssues) {
+            if (ids.add(issue.getId())) {
+                issues.add(issue);
+            }
+        }
+        for (int page = resumedPages + 1; page <= lastPage; page++) {
+            for (TurboIssue issue : pages.getOrDefault(page, new ArrayList<>())) {
+                if (ids.add(issue.getId())) {
+                    issues.add(issue);
+                }
+            }
+        }
+        return issues;
     }
 }
@@ -16,9 +16,7 @@ import org.eclipse.egit.github.core.client.*;
 import org.eclipse.egit.github.core.service.CollaboratorService;
 import org.eclipse.egit.github.core.service.IssueService;
 import org.eclipse.egit.github.core.service.MilestoneService;
-import ui.UI;
 import util.HTLog;
-import util.events.UpdateProgressEvent;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
@@ -38,6 +36,7 @@ public class GitHubRepo implements Repo {
     private final CollaboratorService collaboratorService = new CollaboratorService(client);
     private final LabelServiceEx labelService = new LabelServiceEx(client);
     private final MilestoneService milestoneService = new MilestoneService(client);
+    private final RepoEventsService eventsService = new RepoEventsService(client);
 
     @Override
     public boolean login(UserCredentials credentials) {
@@ -89,6 +88,16 @@ public class GitHubRepo implements Repo {
         return getUpdatedResource(repoId, eTag, UserUpdateService::new, TurboUser::new);
     }
 
+    @Override
+    public Optional<Set<String>> getNewEventTypes(String repoId) {
+        return eventsService.getNewEventTypes(repoId);
+    }
+
+    @Override
+    public void forgetLastEventsPoll(String repoId) {
+        eventsService.forgetLastPoll(repoId);
+    }
+
     private <TR, R, S extends UpdateService<R>> ImmutablePair<List<TR>, String> getUpdatedResource(
         String repoId, String eTag, BiFunction<GitHubClientEx, String, S> constructService,
         BiFunction<String, R, TR> resourceConstructor) {
@@ -146,52 +155,24 @@ public class GitHubRepo implements Repo {
     }
 
     @Override
-    public List<TurboIssue> getIssues(String repoId) {
+    public ImmutablePair<List<TurboIssue>, Integer> getIssuesPage(String repoId, int page) throws IOException {
         Map<String, String> filters = new HashMap<>();
         filters.put(IssueService.FIELD_FILTER, "all");
         filters.put(IssueService.FILTER_STATE, "all");
-        return getAll(issueService.pageIssues(RepositoryId.createFromId(repoId), filters), repoId).stream()
-            .map(i -> new TurboIssue(repoId, i))
-            .collect(Collectors.toList());
-    }
-
-    private List<Issue> getAll(PageIterator<Issue> iterator, String repoId) {
-        List<Issue> elements = new ArrayList<>();
-
-        // Assume there is at least one page
-        int knownLastPage = 1;
+        PageIterator<Issue> iterator = issueService.pageIssues(RepositoryId.createFromId(repoId), filters,
+            page, PagedRequest.PAGE_SIZE);
 
         try {
-            while (iterator.hasNext()) {
-                Collection<Issue> additions = iterator.next();
-                elements.addAll(additions);
-
-                // Compute progress
-
-                // iterator.getLastPage() only has a value after iterator.next() is called,
-                // so it's used directly in this loop. It returns the 1-based index of the last
-                // page, except when we are actually on the last page, in which case it returns -1.
-                // This portion deals with all these quirks.
-
-                knownLastPage = Math.max(knownLastPage, iterator.getLastPage());
-                int totalIssueCount = knownLastPage * PagedRequest.PAGE_SIZE;
-                // Total is approximate: always >= the actual amount
-                assert totalIssueCount >= elements.size();
-
-                float progress = (float) elements.size() / (float) totalIssueCount;
-                UI.events.triggerEvent(new UpdateProgressEvent(repoId, progress));
-                logger.info(HTLog.format(repoId, "Loaded %d issues (%.0f%% done)",
-                    elements.size(), progress * 100));
-            }
-            UI.events.triggerEvent(new UpdateProgressEvent(repoId));
-        } catch (NoSuchPageException pageException) {
-            try {
-                throw pageException.getCause();
-            } catch (IOException e) {
-                HTLog.error(logger, e);
-            }
+            List<TurboIssue> issues = iterator.next().stream()
+                .map(i -> new TurboIssue(repoId, i))
+                .collect(Collectors.toList());
+
+            // iterator.getLastPage() returns the 1-based index of the last page, except when
+            // we are actually on the last page, in which case it returns -1.
+            return new ImmutablePair<>(issues, Math.max(page, iterator.getLastPage()));
+        } catch (NoSuchPageException e) {
+            throw e.getCause();
         }
-        return elements;
     }
 
     @Override
@@ -248,6 +229,59 @@ public class GitHubRepo implements Repo {
         return result;
     }
 
+    /**
+     * Gets all types of comments for an issue, making conditional requests so that those which
+     * have not changed since the given ETag are taken from the issue's metadata instead of being
+     * downloaded again. For pull requests, the ETag is that of the issue comments followed by that
+     * of the review comments, separated by a space.
+     * @param repoId
+     * @param issue
+     * @param currentETag
+     * @return the comments of the issue and their updated ETag
+     */
+    @Override
+    public ImmutablePair<List<Comment>, String> getUpdatedComments(String repoId, TurboIssue issue,
+                                                                   String currentETag) {
+        RepositoryId repository = RepositoryId.createFromId(repoId);
+        List<Comment> previousComments = issue.getMetadata().getComments();
+        String[] eTags = currentETag.split(" ", 2);
+        String commentsETag = eTags[0];
+        String reviewCommentsETag = eTags.length > 1 ? eTags[1] : "";
+
+        try {
+            List<Comment> result = new ArrayList<>();
+
+            Optional<ImmutablePair<List<Comment>, String>> comments =
+                    issueService.getCommentsIfModified(repository, issue.getId(), commentsETag);
+            if (comments.isPresent()) {
+                result.addAll(comments.get().getLeft());
+                commentsETag = comments.get().getRight();
+            } else {
+                previousComments.stream()
+                        .filter(comment -> !(comment instanceof ReviewComment))
+                        .forEach(result::add);
+            }
+            if (!issue.isPullRequest()) {
+                return new ImmutablePair<>(result, commentsETag);
+            }
+
+            Optional<ImmutablePair<List<ReviewComment>, String>> reviewComments =
+                    pullRequestService.getReviewCommentsIfModified(repository, issue.getId(), reviewCommentsETag);
+            if (reviewComments.isPresent()) {
+                result.addAll(reviewComments.get().getLeft());
+                reviewCommentsETag = reviewComments.get().getRight();
+            } else {
+                previousComments.stream()
+                        .filter(comment -> comment instanceof ReviewComment)
+                        .forEach(result::add);
+            }
+            return new ImmutablePair<>(result, commentsETag + " " + reviewCommentsETag);
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            return new ImmutablePair<>(previousComments, currentETag);
+        }
+    }
+
     @Override
     public List<Label> setLabels(String repoId, int issueId, List<String> labels) throws IOException {
         return labelService.setLabels(
@@ -282,5 +316,20 @@ public class GitHubRepo implements Repo {
     public ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException {
         return client.getRateLimitResetTime();
     }
+
+    @Override
+    public int getRemainingRequests() {
+        return client.getRemainingRequests();
+    }
+
+    @Override
+    public int getRequestLimit() {
+        return client.getRequestLimit();
+    }
+
+    @Override
+    public long getRequestsResetTime() {
+        return client.getRequestsResetTime();
+    }
 }
 
@@ -1,9 +1,11 @@
 package backend.github;
 
+import backend.DownloadCheckpoint;
 import backend.IssueMetadata;
 import backend.UserCredentials;
 import backend.interfaces.Repo;
 import backend.interfaces.RepoSource;
+import backend.interfaces.RequestPriority;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -12,7 +14,9 @@ import util.HTLog;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class GitHubSource extends RepoSource {
 
@@ -40,18 +44,20 @@ public class GitHubSource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Model> downloadRepository(String repoId) {
-        return addTask(new DownloadRepoTask(this, gitHub, repoId)).response;
+    public CompletableFuture<Model> downloadRepository(String repoId, Optional<DownloadCheckpoint> resumeFrom,
+                                                       Consumer<DownloadCheckpoint> onCheckpoint) {
+        return addTask(new DownloadRepoTask(this, gitHub, repoId, resumeFrom, onCheckpoint)).response;
     }
 
     @Override
-    public CompletableFuture<Model> updateModel(Model model) {
-        return addTask(new UpdateModelTask(this, gitHub, model)).response;
+    public CompletableFuture<Model> updateModel(Model model, RequestPriority priority) {
+        return addTask(new UpdateModelTask(this, gitHub, model, priority)).response;
     }
 
     @Override
     public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId, List<TurboIssue> issues) {
-        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues)).response;
+        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues,
+                                                getMetadataDownloadConcurrency())).response;
     }
 
     @Override
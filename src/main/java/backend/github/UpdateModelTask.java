@@ -2,53 +2,159 @@ package backend.github;
 
 import backend.UpdateSignature;
 import backend.interfaces.Repo;
+import backend.interfaces.RepoTask;
+import backend.interfaces.RequestPriority;
 import backend.interfaces.TaskRunner;
 import backend.resource.*;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
-import java.util.concurrent.ExecutionException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class UpdateModelTask extends GitHubRepoTask<Model> {
 
     private static final Logger logger = HTLog.get(UpdateModelTask.class);
 
+    // One for the events feed, and one for each of issues, pull requests, labels, milestones and
+    // collaborators, assuming a page each
+    public static final int ESTIMATED_REQUESTS = 6;
+
+    // Everything is updated if the issues have not been checked for this long
+    private static final long FULL_UPDATE_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+    // The types of events in the repository's events feed which each kind of resource is updated for.
+    // Issue and pull request activity also changes the issue counts of milestones, and brings in labels
+    // and milestones which are new; collaborators are only changed by MemberEvents.
+    private static final Set<String> ISSUE_EVENT_TYPES = new HashSet<>(Arrays.asList(
+        "IssuesEvent", "IssueCommentEvent", "PullRequestEvent", "PullRequestReviewEvent",
+        "PullRequestReviewCommentEvent", "PushEvent"));
+    private static final Set<String> LABEL_EVENT_TYPES = new HashSet<>(Arrays.asList(
+        "IssuesEvent", "PullRequestEvent"));
+    private static final Set<String> MILESTONE_EVENT_TYPES = new HashSet<>(Arrays.asList(
+        "IssuesEvent", "PullRequestEvent"));
+    private static final Set<String> COLLABORATOR_EVENT_TYPES = new HashSet<>(Arrays.asList(
+        "MemberEvent"));
+
     private final Model model;
+    private final RequestPriority priority;
 
-    public UpdateModelTask(TaskRunner taskRunner, Repo repo, Model model) {
+    public UpdateModelTask(TaskRunner taskRunner, Repo repo, Model model, RequestPriority priority) {
         super(taskRunner, repo);
         this.model = model;
+        this.priority = priority;
+    }
+
+    @Override
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public int getEstimatedRequests() {
+        return ESTIMATED_REQUESTS;
+    }
+
+    /**
+     * Updates may be skipped, leaving the model as it is until the next update.
+     */
+    @Override
+    public Optional<Model> getSkippedResponse() {
+        return Optional.of(model);
     }
 
     @Override
     public void run() {
-        UpdateIssuesTask issuesTask = new UpdateIssuesTask(taskRunner, repo, model);
-        UpdateLabelsTask labelsTask = new UpdateLabelsTask(taskRunner, repo, model);
-        UpdateMilestonesTask milestonesTask = new UpdateMilestonesTask(taskRunner, repo, model);
-        UpdateUsersTask usersTask = new UpdateUsersTask(taskRunner, repo, model);
-
-        taskRunner.execute(issuesTask);
-        taskRunner.execute(labelsTask);
-        taskRunner.execute(milestonesTask);
-        taskRunner.execute(usersTask);
-
-        try {
-            GitHubRepoTask.Result<TurboIssue> issuesResult = issuesTask.response.get();
-            GitHubRepoTask.Result<TurboLabel> labelsResult = labelsTask.response.get();
-            GitHubRepoTask.Result<TurboMilestone> milestonesResult = milestonesTask.response.get();
-            GitHubRepoTask.Result<TurboUser> usersResult = usersTask.response.get();
-
-            UpdateSignature newSignature =
-                new UpdateSignature(issuesResult.eTag, labelsResult.eTag,
-                    milestonesResult.eTag, usersResult.eTag, issuesResult.lastCheckTime);
-
-            Model result = new Model(model.getRepoId(), issuesResult.items,
-                labelsResult.items, milestonesResult.items, usersResult.items, newSignature);
-
-            logger.info(HTLog.format(model.getRepoId(), "Updated model with " + result.summarise()));
-            response.complete(result);
-        } catch (InterruptedException | ExecutionException e) {
-            HTLog.error(logger, e);
+        String repoId = model.getRepoId();
+        UpdateSignature signature = model.getUpdateSignature();
+
+        // The feed is polled even when everything is due to be updated, so that the next poll starts from here
+        Optional<Set<String>> newEventTypes = repo.getNewEventTypes(repoId);
+        boolean isFullUpdate = !newEventTypes.isPresent() || isFullUpdateDue();
+        Set<String> eventTypes = newEventTypes.orElseGet(HashSet::new);
+
+        boolean updateIssues = isFullUpdate || containsAny(eventTypes, ISSUE_EVENT_TYPES);
+        boolean updateLabels = isFullUpdate || containsAny(eventTypes, LABEL_EVENT_TYPES);
+        boolean updateMilestones = isFullUpdate || containsAny(eventTypes, MILESTONE_EVENT_TYPES);
+        boolean updateUsers = isFullUpdate || containsAny(eventTypes, COLLABORATOR_EVENT_TYPES);
+        if (!updateIssues && !updateLabels && !updateMilestones && !updateUsers) {
+            logger.info(HTLog.format(repoId, "Nothing new in the events feed; model not updated"));
+            response.complete(model);
+            return;
         }
+
+        // Resources left out keep their items, ETags and (for issues) last-check time
+        CompletableFuture<Result<TurboIssue>> issuesUpdate = updateIssues
+            ? start(new UpdateIssuesTask(taskRunner, repo, model))
+            : CompletableFuture.completedFuture(
+                new Result<>(model.getIssues(), signature.issuesETag, signature.lastCheckTime));
+        CompletableFuture<Result<TurboLabel>> labelsUpdate = updateLabels
+            ? start(new UpdateLabelsTask(taskRunner, repo, model))
+            : CompletableFuture.completedFuture(new Result<>(model.getLabels(), signature.labelsETag));
+        CompletableFuture<Result<TurboMilestone>> milestonesUpdate = updateMilestones
+            ? start(new UpdateMilestonesTask(taskRunner, repo, model))
+            : CompletableFuture.completedFuture(new Result<>(model.getMilestones(), signature.milestonesETag));
+        CompletableFuture<Result<TurboUser>> usersUpdate = updateUsers
+            ? start(new UpdateUsersTask(taskRunner, repo, model))
+            : CompletableFuture.completedFuture(new Result<>(model.getUsers(), signature.collaboratorsETag));
+
+        // The response is completed once the last update is, so no thread waits on the others
+        CompletableFuture.allOf(issuesUpdate, labelsUpdate, milestonesUpdate, usersUpdate)
+            .whenComplete((ignored, e) -> {
+                if (e != null) {
+                    // As when skipped, the model is left as it is until the next update. The feed has been
+                    // polled past the changes which were missed, so the next update has to be a full one.
+                    logger.error(e.getLocalizedMessage(), e);
+                    repo.forgetLastEventsPoll(repoId);
+                    response.complete(model);
+                    return;
+                }
+
+                // All are done by now, so joining does not block
+                GitHubRepoTask.Result<TurboIssue> issuesResult = issuesUpdate.join();
+                GitHubRepoTask.Result<TurboLabel> labelsResult = labelsUpdate.join();
+                GitHubRepoTask.Result<TurboMilestone> milestonesResult = milestonesUpdate.join();
+                GitHubRepoTask.Result<TurboUser> usersResult = usersUpdate.join();
+
+                UpdateSignature newSignature =
+                    new UpdateSignature(issuesResult.eTag, labelsResult.eTag,
+                        milestonesResult.eTag, usersResult.eTag, issuesResult.lastCheckTime);
+
+                Model result = new Model(repoId, issuesResult.items,
+                    labelsResult.items, milestonesResult.items, usersResult.items, newSignature);
+
+                logger.info(HTLog.format(repoId, "Updated model with " + result.summarise()));
+                response.complete(result);
+            });
+    }
+
+    /**
+     * The events feed does not report everything (e.g. edits to labels) and lags behind changes,
+     * so everything is updated once the issues have gone unchecked for a while.
+     */
+    private boolean isFullUpdateDue() {
+        Date lastCheckTime = model.getUpdateSignature().lastCheckTime;
+        return lastCheckTime == null || System.currentTimeMillis() - lastCheckTime.getTime() >= FULL_UPDATE_INTERVAL;
+    }
+
+    private <R> CompletableFuture<R> start(RepoTask<R> task) {
+        taskRunner.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // Otherwise the update would never complete
+                task.response.completeExceptionally(e);
+            }
+        });
+        return task.response;
+    }
+
+    private static boolean containsAny(Set<String> eventTypes, Set<String> relevantTypes) {
+        return eventTypes.stream().anyMatch(relevantTypes::contains);
     }
 }
@@ -16,12 +16,15 @@ import org.eclipse.egit.github.core.PullRequest;
 import java.io.IOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface Repo {
 
     boolean login(UserCredentials credentials);
 
-    List<TurboIssue> getIssues(String repoId);
+    // Returns the issues on the given 1-based page of all issues, with the number of the last page
+    ImmutablePair<List<TurboIssue>, Integer> getIssuesPage(String repoId, int page) throws IOException;
     List<TurboLabel> getLabels(String repoId);
     List<TurboMilestone> getMilestones(String repoId);
     List<TurboUser> getCollaborators(String repoId);
@@ -33,14 +36,28 @@ public interface Repo {
     ImmutablePair<List<TurboLabel>, String> getUpdatedLabels(String repoId, String eTag);
     ImmutablePair<List<TurboMilestone>, String> getUpdatedMilestones(String repoId, String eTag);
     ImmutablePair<List<TurboUser>, String> getUpdatedCollaborators(String repoId, String eTag);
+    // The types of the events in the repository's events feed since it was last polled;
+    // Optional.empty() if they cannot all be told, in which case everything should be updated
+    Optional<Set<String>> getNewEventTypes(String repoId);
+    // Makes the next poll of the events feed report that what has changed cannot be told,
+    // for when the changes reported by the last poll could not be fetched
+    void forgetLastEventsPoll(String repoId);
 
     ImmutablePair<List<TurboIssueEvent>, String> getUpdatedEvents(String repoId, int issueId, String eTag);
     List<Comment> getComments(String repoId, int issueId);
     List<ReviewComment> getReviewComments(String repoId, int pullRequestId);
     List<Comment> getAllComments(String repoId, TurboIssue issue);
+    // Reuses the comments in the issue's metadata where they have not changed since the given ETag
+    ImmutablePair<List<Comment>, String> getUpdatedComments(String repoId, TurboIssue issue, String eTag);
 
     boolean isRepositoryValid(String repoId);
     List<Label> setLabels(String repoId, int issueId, List<String> labels) throws IOException;
     ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException;
+    // The number of requests remaining as last reported, without making a request; -1 if unknown
+    int getRemainingRequests();
+    // The hourly request limit as last reported; -1 if unknown
+    int getRequestLimit();
+    // The time in milliseconds at which the remaining requests were last reported to be reset; 0 if unknown
+    long getRequestsResetTime();
 
 }
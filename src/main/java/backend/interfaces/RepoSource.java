@@ -1,5 +1,6 @@
 package backend.interfaces;
 
+import backend.DownloadCheckpoint;
 import backend.IssueMetadata;
 import backend.UserCredentials;
 import backend.resource.Model;
@@ -8,17 +9,29 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public abstract class RepoSource implements TaskRunner {
 
-    private final ExecutorService pool = Executors.newCachedThreadPool();
+    public static final int DEFAULT_METADATA_DOWNLOAD_CONCURRENCY = 4;
+
+    // Tasks compose the work they depend on rather than waiting for it, so a bounded pool does not deadlock
+    private static final int MAX_POOL_THREADS = 16;
+    private static final long POOL_KEEP_ALIVE_SECONDS = 60;
+
+    private final ThreadPoolExecutor pool = createPool();
+    // Tasks are paced according to the rate limit; work they hand to execute is not
+    private final RequestScheduler scheduler = new RequestScheduler(pool);
+    private volatile int metadataDownloadConcurrency = DEFAULT_METADATA_DOWNLOAD_CONCURRENCY;
 
     @Override
     public <R> RepoTask<R> addTask(RepoTask<R> task) {
-        execute(task);
+        scheduler.schedule(task);
         return task;
     }
 
@@ -27,13 +40,54 @@ public abstract class RepoSource implements TaskRunner {
         pool.execute(r);
     }
 
+    /**
+     * Like a cached thread pool, idle threads are let go after a while, but there are never more
+     * than MAX_POOL_THREADS; work beyond that is queued.
+     */
+    private static ThreadPoolExecutor createPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_POOL_THREADS, MAX_POOL_THREADS,
+            POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Describes how many of the pool's threads are busy, how many there are, and how many there have
+     * been at most, for logging.
+     */
+    public String summarisePool() {
+        return String.format("%d of %d thread(s) busy, %d at most, %d task(s) queued",
+            pool.getActiveCount(), pool.getPoolSize(), pool.getLargestPoolSize(), pool.getQueue().size());
+    }
+
+    /**
+     * Sets the number of issues whose metadata may be downloaded at once.
+     */
+    public void setMetadataDownloadConcurrency(int concurrency) {
+        metadataDownloadConcurrency = Math.max(1, concurrency);
+    }
+
+    protected int getMetadataDownloadConcurrency() {
+        return metadataDownloadConcurrency;
+    }
+
     public abstract String getName();
 
     public abstract CompletableFuture<Boolean> login(UserCredentials credentials);
 
-    public abstract CompletableFuture<Model> downloadRepository(String repoId);
+    public CompletableFuture<Model> downloadRepository(String repoId) {
+        return downloadRepository(repoId, Optional.empty(), checkpoint -> {});
+    }
+
+    /**
+     * Downloads a repository, resuming from where an interrupted download left off if a checkpoint
+     * of it is given. Checkpoints from which this download could be resumed are passed to onCheckpoint
+     * as it progresses.
+     */
+    public abstract CompletableFuture<Model> downloadRepository(String repoId, Optional<DownloadCheckpoint> resumeFrom,
+                                                                Consumer<DownloadCheckpoint> onCheckpoint);
 
-    public abstract CompletableFuture<Model> updateModel(Model model);
+    public abstract CompletableFuture<Model> updateModel(Model model, RequestPriority priority);
 
     public abstract CompletableFuture<Map<Integer, IssueMetadata>>
         downloadMetadata(String repoId, List<TurboIssue> issues);
@@ -1,34 +1,151 @@
 package backend.interfaces;
 
+import backend.DownloadCheckpoint;
 import backend.resource.Model;
 import backend.resource.serialization.SerializableModel;
 import util.Utility;
 
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+/**
+ * Stores repositories locally. Tasks run on a small pool of threads, so that several repositories
+ * can be loaded at once; tasks on the same repository still run one at a time, in the order they
+ * were added, so a load never sees a partially-written repository and writes are never reordered.
+ */
 public abstract class RepoStore {
+    private static final Logger logger = HTLog.get(RepoStore.class);
+
     protected static String directory = "store";
     public static final String TEST_DIRECTORY = "store/test";
-    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    protected static final String CHECKPOINT_EXTENSION = "checkpoint";
+
+    private static final int MAX_STORE_THREADS = 4;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(MAX_STORE_THREADS, Runtime.getRuntime().availableProcessors())));
+
+    // The last task added for each repository, which the next one for that repository waits on
+    private final Map<String, CompletableFuture<Void>> lastTasks = new HashMap<>();
 
     public static String escapeRepoName(String repoName) {
-        return repoName.replace("/", "-") + ".json";
+        return escapeRepoName(repoName, "json");
+    }
+
+    public static String escapeRepoName(String repoName, String extension) {
+        return repoName.replace("/", "-") + "." + extension;
     }
 
     protected void addTask(StoreTask task) {
-        pool.execute(task);
+        // Repo ids differing only in case name the same repository, so their tasks are ordered together
+        String key = task.repoId.toLowerCase();
+        synchronized (lastTasks) {
+            CompletableFuture<Void> previous = lastTasks.getOrDefault(key, CompletableFuture.completedFuture(null));
+            CompletableFuture<Void> next = previous.handle((result, e) -> null).thenRunAsync(task, pool);
+            lastTasks.put(key, next);
+            next.whenComplete((result, e) -> {
+                synchronized (lastTasks) {
+                    lastTasks.remove(key, next);
+                }
+            });
+        }
     }
 
     public abstract CompletableFuture<Model> loadRepository(String repoId);
     public abstract CompletableFuture<Boolean> saveRepository(String repoId, SerializableModel model);
+    public abstract CompletableFuture<Boolean> removeStoredRepo(String repoId);
+    public abstract List<String> getStoredRepos();
+
+    /**
+     * Keeps the progress of a repository's initial download, replacing any kept before.
+     * Like other tasks on the repository, this is done in order, so the latest checkpoint is the one kept.
+     * @return true on failure, like saveRepository
+     */
+    public CompletableFuture<Boolean> saveCheckpoint(DownloadCheckpoint checkpoint) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new StoreTask(checkpoint.repoId) {
+            @Override
+            public void run() {
+                response.complete(writeCheckpoint(checkpoint));
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Gets the progress of an interrupted initial download, if any was kept.
+     */
+    public CompletableFuture<Optional<DownloadCheckpoint>> loadCheckpoint(String repoId) {
+        CompletableFuture<Optional<DownloadCheckpoint>> response = new CompletableFuture<>();
+        addTask(new StoreTask(repoId) {
+            @Override
+            public void run() {
+                response.complete(readCheckpoint(repoId));
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Discards the progress of a repository's initial download, once it is no longer needed.
+     * @return true on failure
+     */
+    public CompletableFuture<Boolean> removeCheckpoint(String repoId) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new StoreTask(repoId) {
+            @Override
+            public void run() {
+                response.complete(deleteCheckpoint(repoId));
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Writes a checkpoint on the calling thread.
+     * @return true on failure
+     */
+    protected abstract boolean writeCheckpoint(DownloadCheckpoint checkpoint);
+
+    /**
+     * Reads a checkpoint on the calling thread.
+     * @return the checkpoint, or nothing if there is none or it cannot be read
+     */
+    protected abstract Optional<DownloadCheckpoint> readCheckpoint(String repoId);
+
+    private static boolean deleteCheckpoint(String repoId) {
+        Optional<String> path = getRepoPath(repoId, CHECKPOINT_EXTENSION);
+        if (!path.isPresent()) {
+            return true;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(path.get()));
+            return false;
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return true;
+        }
+    }
 
     private static Optional<String> getRepoPath(String repoId) {
+        return getRepoPath(repoId, "json");
+    }
+
+    protected static Optional<String> getRepoPath(String repoId, String extension) {
         if (ensureDirectoryExists()) {
-            String newRepoName = RepoStore.escapeRepoName(repoId);
+            String newRepoName = RepoStore.escapeRepoName(repoId, extension);
             return Optional.of(new File(RepoStore.directory, newRepoName).getAbsolutePath());
         }
         return Optional.empty();
@@ -38,10 +155,18 @@ public abstract class RepoStore {
         return Utility.writeFile(getRepoPath(repoId).orElse(""), output, issueCount);
     }
 
+    public static boolean write(String repoId, Utility.ContentWriter output, int issueCount) {
+        return Utility.writeFile(getRepoPath(repoId).orElse(""), output, issueCount);
+    }
+
     public static Optional<String> read(String repoId) {
         return Utility.readFile(getRepoPath(repoId).orElse(""));
     }
 
+    public static <T> Optional<T> read(String repoId, Utility.ContentReader<T> input) {
+        return Utility.readFile(getRepoPath(repoId).orElse(""), input);
+    }
+
     public static boolean delete(String repoId) {
         return Utility.deleteFile(getRepoPath(repoId).orElse(""));
     }
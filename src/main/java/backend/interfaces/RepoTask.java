@@ -1,5 +1,6 @@
 package backend.interfaces;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public abstract class RepoTask<R> implements Runnable {
@@ -14,4 +15,24 @@ public abstract class RepoTask<R> implements Runnable {
     }
 
     public abstract void run();
+
+    public RequestPriority getPriority() {
+        return RequestPriority.VISIBLE;
+    }
+
+    /**
+     * An estimate of the number of API requests the task will make, used to decide whether it can run
+     * within the rate limit.
+     */
+    public int getEstimatedRequests() {
+        return 1;
+    }
+
+    /**
+     * The response with which the task may be completed without being run, when there are not enough
+     * requests left to run it. Tasks without one are waited for, which is the default.
+     */
+    public Optional<R> getSkippedResponse() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,24 @@
+package backend.interfaces;
+
+/**
+ * How urgently a task's requests should be made, in decreasing order of urgency. Tasks of lower
+ * priority are held back sooner when the rate limit is near; see RequestScheduler.
+ */
+public enum RequestPriority {
+    // Work the user is waiting for, such as updating repositories shown in panels
+    VISIBLE(0),
+    // Downloading issue metadata
+    METADATA(0.25),
+    // Updating repositories which are open but not shown
+    BACKGROUND(0.5);
+
+    /**
+     * The fraction of the hourly request limit, pro-rated over the time left until the limit is reset,
+     * which is kept for tasks of higher priority.
+     */
+    public final double reservedFraction;
+
+    RequestPriority(double reservedFraction) {
+        this.reservedFraction = reservedFraction;
+    }
+}
@@ -0,0 +1,163 @@
+package backend.interfaces;
+
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the tasks of a repo source so that the hourly rate limit is spread over the hour, rather than
+ * being used up early by work the user is not waiting for.
+ *
+ * The rate limit last reported by the repo of each finished task is the budget. A task is started only
+ * if its estimated requests leave the part of the budget reserved for higher priorities (see
+ * RequestPriority); the reserve shrinks as the time of reset approaches, and is gone once the limit
+ * has been reset. Tasks which cannot start are either skipped, if they allow it, or held back (along
+ * with all tasks of lower priority) until the reserve has shrunk enough or more is known of the budget.
+ *
+ * While the rate limit is unknown, tasks are started as soon as they are scheduled.
+ */
+public class RequestScheduler {
+
+    private static final Logger logger = HTLog.get(RequestScheduler.class);
+
+    private static final long RATE_LIMIT_WINDOW = TimeUnit.HOURS.toMillis(1);
+    private static final long MIN_RECHECK_DELAY = TimeUnit.SECONDS.toMillis(1);
+
+    private final Executor executor;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Request scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<RequestPriority, Queue<RepoTask<?>>> heldTasks = new EnumMap<>(RequestPriority.class);
+    private ScheduledFuture<?> recheck = null;
+
+    // Estimated requests of tasks which have started but not yet finished
+    private int reservedRequests = 0;
+
+    // The rate limit as last reported; -1 and 0 if unknown
+    private int requestLimit = -1;
+    private int remainingRequests = -1;
+    private long resetTime = 0;
+
+    /**
+     * @param executor runs tasks once they are started
+     */
+    public RequestScheduler(Executor executor) {
+        this.executor = executor;
+        for (RequestPriority priority : RequestPriority.values()) {
+            heldTasks.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    public synchronized void schedule(RepoTask<?> task) {
+        heldTasks.get(task.getPriority()).add(task);
+        startTasks();
+    }
+
+    /**
+     * Starts held tasks in order of priority, until one has to be held back. Skippable tasks which
+     * cannot be started are skipped, even after that.
+     */
+    private synchronized void startTasks() {
+        long now = System.currentTimeMillis();
+        boolean isHoldingBack = false;
+        for (RequestPriority priority : RequestPriority.values()) {
+            Iterator<RepoTask<?>> tasks = heldTasks.get(priority).iterator();
+            while (tasks.hasNext()) {
+                RepoTask<?> task = tasks.next();
+                if (!isHoldingBack && canStart(task, now)) {
+                    tasks.remove();
+                    start(task);
+                } else if (task.getSkippedResponse().isPresent()) {
+                    logger.info(String.format("Skipping %s as the rate limit is near",
+                        task.getClass().getSimpleName()));
+                    tasks.remove();
+                    // Skipping completes the task's response, so dependent work is kept off this lock
+                    executor.execute(() -> skip(task));
+                } else if (!isHoldingBack) {
+                    logger.info(String.format("Holding back %s as the rate limit is near",
+                        task.getClass().getSimpleName()));
+                    scheduleRecheck(getStartTime(task));
+                    isHoldingBack = true;
+                }
+            }
+        }
+    }
+
+    private void start(RepoTask<?> task) {
+        int estimatedRequests = task.getEstimatedRequests();
+        reservedRequests += estimatedRequests;
+        // Tasks may return from run before their work is done, so they are finished once they respond
+        task.response.whenComplete((result, e) -> finished(task, estimatedRequests));
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                task.response.completeExceptionally(e);
+                throw e;
+            }
+        });
+    }
+
+    private static <R> void skip(RepoTask<R> task) {
+        task.getSkippedResponse().ifPresent(task.response::complete);
+    }
+
+    private synchronized void finished(RepoTask<?> task, int estimatedRequests) {
+        reservedRequests -= estimatedRequests;
+        if (task.repo != null && task.repo.getRemainingRequests() >= 0) {
+            requestLimit = task.repo.getRequestLimit();
+            remainingRequests = task.repo.getRemainingRequests();
+            resetTime = task.repo.getRequestsResetTime();
+        }
+        startTasks();
+    }
+
+    private boolean isRateLimitKnown(long now) {
+        return requestLimit > 0 && remainingRequests >= 0 && now < resetTime;
+    }
+
+    private boolean canStart(RepoTask<?> task, long now) {
+        return !isRateLimitKnown(now)
+            || remainingRequests - reservedRequests - task.getEstimatedRequests()
+                >= getReservedRequests(task.getPriority(), now);
+    }
+
+    private double getReservedRequests(RequestPriority priority, long now) {
+        double remainingWindow = Math.min(1, (double) (resetTime - now) / RATE_LIMIT_WINDOW);
+        return requestLimit * remainingWindow * priority.reservedFraction;
+    }
+
+    /**
+     * Finds the earliest time at which the reserve for the task's priority will have shrunk enough for
+     * the task to start, assuming no requests are made until then.
+     */
+    private long getStartTime(RepoTask<?> task) {
+        int spareRequests = remainingRequests - reservedRequests - task.getEstimatedRequests();
+        double reservedFraction = task.getPriority().reservedFraction;
+        if (spareRequests < 0 || reservedFraction == 0) {
+            return resetTime;
+        }
+        return resetTime - (long) (RATE_LIMIT_WINDOW * spareRequests / (requestLimit * reservedFraction));
+    }
+
+    private void scheduleRecheck(long time) {
+        if (recheck != null) {
+            recheck.cancel(false);
+        }
+        long delay = Math.max(MIN_RECHECK_DELAY, time - System.currentTimeMillis());
+        recheck = timer.schedule(this::startTasks, delay, TimeUnit.MILLISECONDS);
+    }
+}
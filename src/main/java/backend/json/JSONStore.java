@@ -1,16 +1,21 @@
 package backend.json;
 
+import backend.DownloadCheckpoint;
 import backend.interfaces.RepoStore;
 import backend.resource.Model;
+import backend.resource.serialization.SerializableDownloadCheckpoint;
 import backend.resource.serialization.SerializableModel;
-import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 import util.Utility;
+import util.exceptions.RepoStoreException;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
@@ -41,7 +46,15 @@ public class JSONStore extends RepoStore {
         return response;
     }
 
+    @Override
     public List<String> getStoredRepos() {
+        return findStoredRepos();
+    }
+
+    /**
+     * Lists the repositories stored as JSON in the store directory.
+     */
+    public static List<String> findStoredRepos() {
         ensureDirectoryExists();
         try {
             return Files.walk(Paths.get(RepoStore.directory), 1)
@@ -57,24 +70,99 @@ public class JSONStore extends RepoStore {
         }
     }
 
+    /**
+     * Loads a repository stored as JSON on the calling thread, rather than as a task of the store.
+     * @param repoId the string id of the repository to be loaded
+     * @return a new Model containing data for the requested repository
+     * @throws RepoStoreException when the repository's JSON data cannot be read or is corrupted
+     */
+    public static Model loadStoredRepo(String repoId) throws RepoStoreException {
+        return ReadTask.load(repoId);
+    }
+
+    @Override
     public CompletableFuture<Boolean> removeStoredRepo(String repoId) {
         CompletableFuture<Boolean> response = new CompletableFuture<>();
         addTask(new DeleteTask(repoId, response));
         return response;
     }
 
+    @Override
+    protected boolean writeCheckpoint(DownloadCheckpoint checkpoint) {
+        return writeCheckpointFile(checkpoint);
+    }
+
+    @Override
+    protected Optional<DownloadCheckpoint> readCheckpoint(String repoId) {
+        return readCheckpointFile(repoId);
+    }
+
+    /**
+     * Writes the progress of a repository's initial download as JSON, on the calling thread.
+     * @return true on failure
+     */
+    public static boolean writeCheckpointFile(DownloadCheckpoint checkpoint) {
+        Optional<String> path = getRepoPath(checkpoint.repoId, CHECKPOINT_EXTENSION);
+        boolean failed = !path.isPresent() || Utility.writeFile(path.get(), writer -> {
+            try {
+                StoreGson.GSON.toJson(new SerializableDownloadCheckpoint(checkpoint),
+                        SerializableDownloadCheckpoint.class, writer);
+            } catch (JsonIOException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+            }
+        }, checkpoint.issues.size());
+        if (!failed) {
+            logger.info(HTLog.format(checkpoint.repoId, "Download checkpoint written after %d page(s)",
+                    checkpoint.completedPages));
+        }
+        return failed;
+    }
+
+    /**
+     * Reads the progress of an interrupted initial download kept as JSON, on the calling thread.
+     * @return the checkpoint, or nothing if there is none or it is corrupted
+     */
+    public static Optional<DownloadCheckpoint> readCheckpointFile(String repoId) {
+        Optional<String> path = getRepoPath(repoId, CHECKPOINT_EXTENSION);
+        if (!path.isPresent() || !Files.exists(Paths.get(path.get()))) {
+            return Optional.empty();
+        }
+        try {
+            return Utility.readFile(path.get(), reader -> new DownloadCheckpoint(
+                    StoreGson.GSON.fromJson(reader, SerializableDownloadCheckpoint.class)));
+        } catch (NullPointerException | JsonParseException e) {
+            logger.error(HTLog.format(repoId, "Download checkpoint is corrupted"));
+            return Optional.empty();
+        }
+    }
+
     private static Optional<String> getRepositoryIdFromJson(Path p) {
         try {
-            String repoId = new Model(
-                    (SerializableModel) new Gson().fromJson(Utility.readFile(String.valueOf(p.toAbsolutePath())).get(),
-                            new TypeToken<SerializableModel>() {}.getType())).getRepoId();
-            if (String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId))) {
+            Optional<String> repoId = Utility.readFile(String.valueOf(p.toAbsolutePath()), JSONStore::readRepoId);
+            if (repoId.isPresent() && String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId.get()))) {
                 logger.info("Adding " + p.getFileName() + " to stored repository list. ");
-                return Optional.of(repoId);
+                return repoId;
             }
-        } catch (NullPointerException | JsonParseException e) {
+        } catch (IllegalStateException | JsonParseException e) {
             logger.error("Unable to load repository from " + p.getFileName());
         }
         return Optional.empty();
     }
+
+    /**
+     * Reads only as far as the repo id of a stored model, instead of the whole model.
+     * @return the repo id, or null if the model has none
+     */
+    private static String readRepoId(Reader reader) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if (jsonReader.nextName().equals("repoId") && jsonReader.peek() == JsonToken.STRING) {
+                return jsonReader.nextString();
+            }
+            jsonReader.skipValue();
+        }
+        return null;
+    }
 }
@@ -1,5 +1,6 @@
 package backend.json;
 
+import backend.DownloadCheckpoint;
 import backend.resource.serialization.SerializableModel;
 
 import java.util.ArrayList;
@@ -21,6 +22,11 @@ public class JSONStoreStub extends JSONStore {
         return CompletableFuture.completedFuture(false);
     }
 
+    @Override
+    protected boolean writeCheckpoint(DownloadCheckpoint checkpoint) {
+        return false;
+    }
+
     @Override
     public List<String> getStoredRepos() {
         return new ArrayList<>();
@@ -4,9 +4,7 @@ import backend.interfaces.RepoStore;
 import backend.interfaces.StoreTask;
 import backend.resource.Model;
 import backend.resource.serialization.SerializableModel;
-import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 import util.exceptions.JSONLoadException;
@@ -44,25 +42,22 @@ class ReadTask extends StoreTask {
      * @throws JSONLoadException when the repository's JSON data cannot be
      *         retrieved from the local store or is corrupted
      */
-    private Model load(String repoId) throws RepoStoreException {
-        Optional<String> input = RepoStore.read(repoId);
+    static Model load(String repoId) throws RepoStoreException {
+        Optional<Model> model;
+        try {
+            // The model is deserialised as the file is read, rather than from a copy of it in memory
+            model = RepoStore.read(repoId, reader ->
+                    new Model(StoreGson.GSON.fromJson(reader, SerializableModel.class)));
+        } catch (NullPointerException | JsonParseException e) {
+            logger.error(HTLog.format(repoId, "JSON data is corrupted"));
+            throw new JSONLoadException(e);
+        }
 
-        if (!input.isPresent()) {
+        if (!model.isPresent()) {
             logger.error("Unable to load " + repoId + " from JSON cache");
             throw new JSONLoadException();
-        } else {
-            logger.info(HTLog.format(repoId, "Data loaded from JSON cache"));
-
-            try {
-                SerializableModel sModel = new Gson().fromJson(input.get(),
-                        new TypeToken<SerializableModel>(){}.getType());
-
-                return new Model(sModel);
-            } catch (NullPointerException | JsonParseException e) {
-                logger.error(HTLog.format(repoId, "JSON data is corrupted"));
-                throw new JSONLoadException(e);
-            }
         }
+        logger.info(HTLog.format(repoId, "Data loaded from JSON cache"));
+        return model.get();
     }
 }
-
@@ -0,0 +1,226 @@
+package backend.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+
+/**
+ * The Gson instance used to read and write the JSON store.
+ *
+ * Without adapters, Gson serialises the java.time classes and Optional reflectively, through
+ * their private fields. The adapters here produce and accept exactly the same JSON, so existing
+ * stores remain readable, but are streamed without reflection.
+ */
+final class StoreGson {
+
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter().nullSafe())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter().nullSafe())
+            .registerTypeAdapterFactory(new OptionalAdapterFactory())
+            .create();
+
+    private StoreGson() {}
+
+    /**
+     * Reads and writes dates as {"year":2015,"month":7,"day":7}.
+     */
+    private static class LocalDateAdapter extends TypeAdapter<LocalDate> {
+        @Override
+        public void write(JsonWriter out, LocalDate date) throws IOException {
+            out.beginObject();
+            out.name("year").value(date.getYear());
+            out.name("month").value(date.getMonthValue());
+            out.name("day").value(date.getDayOfMonth());
+            out.endObject();
+        }
+
+        @Override
+        public LocalDate read(JsonReader in) throws IOException {
+            int year = 0;
+            int month = 0;
+            int day = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "year":
+                        year = in.nextInt();
+                        break;
+                    case "month":
+                        month = in.nextInt();
+                        break;
+                    case "day":
+                        day = in.nextInt();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            try {
+                return LocalDate.of(year, month, day);
+            } catch (DateTimeException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    }
+
+    /**
+     * Reads and writes date-times as {"date":{...},"time":{"hour":1,"minute":21,"second":0,"nano":0}}.
+     */
+    private static class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        private final LocalDateAdapter dateAdapter = new LocalDateAdapter();
+
+        @Override
+        public void write(JsonWriter out, LocalDateTime dateTime) throws IOException {
+            out.beginObject();
+            out.name("date");
+            dateAdapter.write(out, dateTime.toLocalDate());
+            out.name("time").beginObject();
+            out.name("hour").value(dateTime.getHour());
+            out.name("minute").value(dateTime.getMinute());
+            out.name("second").value(dateTime.getSecond());
+            out.name("nano").value(dateTime.getNano());
+            out.endObject();
+            out.endObject();
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            LocalDate date = null;
+            LocalTime time = LocalTime.MIDNIGHT;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "date":
+                        date = dateAdapter.read(in);
+                        break;
+                    case "time":
+                        time = readTime(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            if (date == null) {
+                throw new JsonSyntaxException("Date-time without a date");
+            }
+            return LocalDateTime.of(date, time);
+        }
+
+        private static LocalTime readTime(JsonReader in) throws IOException {
+            int hour = 0;
+            int minute = 0;
+            int second = 0;
+            int nano = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "hour":
+                        hour = in.nextInt();
+                        break;
+                    case "minute":
+                        minute = in.nextInt();
+                        break;
+                    case "second":
+                        second = in.nextInt();
+                        break;
+                    case "nano":
+                        nano = in.nextInt();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            try {
+                return LocalTime.of(hour, minute, second, nano);
+            } catch (DateTimeException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    }
+
+    /**
+     * Reads and writes Optionals as {"value":...}, or {} when empty.
+     */
+    private static class OptionalAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != Optional.class) {
+                return null;
+            }
+            Type valueType = type.getType() instanceof ParameterizedType
+                    ? ((ParameterizedType) type.getType()).getActualTypeArguments()[0]
+                    : Object.class;
+            return (TypeAdapter<T>) new OptionalAdapter<>(gson.getAdapter(TypeToken.get(valueType)));
+        }
+    }
+
+    private static class OptionalAdapter<E> extends TypeAdapter<Optional<E>> {
+        private final TypeAdapter<E> valueAdapter;
+
+        private OptionalAdapter(TypeAdapter<E> valueAdapter) {
+            this.valueAdapter = valueAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Optional<E> optional) throws IOException {
+            if (optional == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (optional.isPresent()) {
+                out.name("value");
+                valueAdapter.write(out, optional.get());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Optional<E> read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return Optional.empty();
+            }
+
+            E value = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("value")) {
+                    value = valueAdapter.read(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return Optional.ofNullable(value);
+        }
+    }
+}
@@ -3,11 +3,11 @@ package backend.json;
 import backend.interfaces.RepoStore;
 import backend.interfaces.StoreTask;
 import backend.resource.serialization.SerializableModel;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
+import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 
 class WriteTask extends StoreTask {
@@ -29,8 +29,14 @@ class WriteTask extends StoreTask {
     }
 
     private boolean save(String repoId, SerializableModel model) {
-        String output = new Gson().toJson(model);
-        boolean corruptedJson = RepoStore.write(repoId, output, model.issues.size());
+        // The model is serialised straight to the file, rather than to a copy of it in memory
+        boolean corruptedJson = RepoStore.write(repoId, writer -> {
+            try {
+                StoreGson.GSON.toJson(model, SerializableModel.class, writer);
+            } catch (JsonIOException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+            }
+        }, model.issues.size());
         logger.info(HTLog.format(repoId, "Written to JSON store"));
         return corruptedJson;
     }
@@ -3,10 +3,16 @@ package backend.resource;
 import backend.UpdateSignature;
 import backend.interfaces.IBaseModel;
 import backend.resource.serialization.SerializableModel;
+import com.google.common.collect.ImmutableList;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("unused")
@@ -14,10 +20,21 @@ public class Model implements IBaseModel {
 
     private final UpdateSignature updateSignature;
     private final String repoId;
-    private final List<TurboIssue> issues;
-    private final List<TurboLabel> labels;
-    private final List<TurboMilestone> milestones;
-    private final List<TurboUser> users;
+
+    // Read-only snapshots, shared by reference with callers of the getters.
+    // Copying an ImmutableList is a no-op, so unchanged resources may be passed
+    // on from one model to the next without being copied.
+    private final ImmutableList<TurboIssue> issues;
+    private final ImmutableList<TurboLabel> labels;
+    private final ImmutableList<TurboMilestone> milestones;
+    private final ImmutableList<TurboUser> users;
+
+    // Lookup indexes, built once on construction. The keys used are immutable fields
+    // of their resources, so the indexes remain valid when resources are mutated.
+    private final Map<Integer, TurboIssue> issuesById;
+    private final Map<String, TurboLabel> labelsByActualName;
+    private final Map<Integer, TurboMilestone> milestonesById;
+    private final Map<String, TurboUser> usersByLogin;
 
     /**
      * Standard constructor.
@@ -28,10 +45,15 @@ public class Model implements IBaseModel {
 
         this.updateSignature = updateSignature;
         this.repoId = repoId;
-        this.issues = issues;
-        this.labels = labels;
-        this.milestones = milestones;
-        this.users = users;
+        this.issues = ImmutableList.copyOf(issues);
+        this.labels = ImmutableList.copyOf(labels);
+        this.milestones = ImmutableList.copyOf(milestones);
+        this.users = ImmutableList.copyOf(users);
+
+        this.issuesById = index(this.issues, TurboIssue::getId);
+        this.labelsByActualName = index(this.labels, TurboLabel::getActualName);
+        this.milestonesById = index(this.milestones, TurboMilestone::getId);
+        this.usersByLogin = index(this.users, TurboUser::getLoginName);
     }
 
     /**
@@ -41,53 +63,52 @@ public class Model implements IBaseModel {
     public Model(String repoId, List<TurboIssue> issues,
         List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users) {
 
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = issues;
-        this.labels = labels;
-        this.milestones = milestones;
-        this.users = users;
+        this(repoId, issues, labels, milestones, users, UpdateSignature.EMPTY);
     }
 
     /**
      * Constructor for the empty model.
      */
     public Model(String repoId) {
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = new ArrayList<>();
-        this.labels = new ArrayList<>();
-        this.milestones = new ArrayList<>();
-        this.users = new ArrayList<>();
+        this(repoId, ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), ImmutableList.of(),
+            UpdateSignature.EMPTY);
     }
 
     /**
-     * Copy constructor.
+     * Copy constructor. As models are immutable, resource lists are shared with the original.
      */
     public Model(Model model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.getRepoId();
-        this.issues = new ArrayList<>(model.getIssues());
-        this.labels = new ArrayList<>(model.getLabels());
-        this.milestones = new ArrayList<>(model.getMilestones());
-        this.users = new ArrayList<>(model.getUsers());
+        this(model.getRepoId(), model.issues, model.labels, model.milestones, model.users,
+            model.updateSignature);
     }
 
     public Model(SerializableModel model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.repoId;
-        this.issues = model.issues.stream()
-            .map(i -> new TurboIssue(model.repoId, i))
-            .collect(Collectors.toList());
-        this.labels = model.labels.stream()
-            .map(l -> new TurboLabel(model.repoId, l))
-            .collect(Collectors.toList());
-        this.milestones = model.milestones.stream()
-            .map(m -> new TurboMilestone(model.repoId, m))
-            .collect(Collectors.toList());
-        this.users = model.users.stream()
-            .map(u -> new TurboUser(model.repoId, u))
-            .collect(Collectors.toList());
+        this(model.repoId,
+            model.issues.stream()
+                .map(i -> new TurboIssue(model.repoId, i))
+                .collect(Collectors.toList()),
+            model.labels.stream()
+                .map(l -> new TurboLabel(model.repoId, l))
+                .collect(Collectors.toList()),
+            model.milestones.stream()
+                .map(m -> new TurboMilestone(model.repoId, m))
+                .collect(Collectors.toList()),
+            model.users.stream()
+                .map(u -> new TurboUser(model.repoId, u))
+                .collect(Collectors.toList()),
+            model.updateSignature);
+    }
+
+    /**
+     * Builds a read-only index of the given resources. If several resources share
+     * a key, the first one is kept, matching the behaviour of a linear search.
+     */
+    private static <K, V> Map<K, V> index(List<V> resources, Function<V, K> key) {
+        Map<K, V> result = new HashMap<>(resources.size() * 2);
+        for (V resource : resources) {
+            result.putIfAbsent(key.apply(resource), resource);
+        }
+        return Collections.unmodifiableMap(result);
     }
 
     public String getRepoId() {
@@ -100,22 +121,22 @@ public class Model implements IBaseModel {
 
     @Override
     public List<TurboIssue> getIssues() {
-        return new ArrayList<>(issues);
+        return issues;
     }
 
     @Override
     public List<TurboLabel> getLabels() {
-        return new ArrayList<>(labels);
+        return labels;
     }
 
     @Override
     public List<TurboMilestone> getMilestones() {
-        return new ArrayList<>(milestones);
+        return milestones;
     }
 
     @Override
     public List<TurboUser> getUsers() {
-        return new ArrayList<>(users);
+        return users;
     }
 
     @SuppressWarnings("unused")
@@ -123,37 +144,22 @@ public class Model implements IBaseModel {
 
     public Optional<TurboIssue> getIssueById(int issueId) {
         assert issueId >= 1 : "Invalid issue id " + issueId;
-        for (TurboIssue issue : getIssues()) {
-            if (issue.getId() == issueId) {
-                return Optional.of(issue);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(issuesById.get(issueId));
     }
 
     public Optional<TurboLabel> getLabelByActualName(String labelName) {
         assert labelName != null && !labelName.isEmpty() : "Invalid label name " + labelName;
-        for (TurboLabel label : getLabels()) {
-            if (label.getActualName().equals(labelName)) {
-                return Optional.of(label);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(labelsByActualName.get(labelName));
     }
 
     public Optional<TurboUser> getUserByLogin(String login) {
         assert login != null && !login.isEmpty() : "Invalid user name " + login;
-        for (TurboUser user : getUsers()) {
-            if (user.getLoginName().equals(login)) {
-                return Optional.of(user);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(usersByLogin.get(login));
     }
 
     public Optional<TurboMilestone> getMilestoneByTitle(String title) {
         assert title != null && !title.isEmpty() : "Invalid milestone title " + title;
-        for (TurboMilestone milestone : getMilestones()) {
+        for (TurboMilestone milestone : milestones) {
             if (milestone.getTitle().equals(title)) {
                 return Optional.of(milestone);
             }
@@ -163,12 +169,7 @@ public class Model implements IBaseModel {
 
     public Optional<TurboMilestone> getMilestoneById(int id) {
         assert id >= 1 : "Invalid milestone id " + id;
-        for (TurboMilestone milestone : getMilestones()) {
-            if (milestone.getId() == id) {
-                return Optional.of(milestone);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(milestonesById.get(id));
     }
 
     public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
@@ -180,10 +181,18 @@ public class Model implements IBaseModel {
     }
 
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
-        return issue.getLabels().stream()
-            .map(this::getLabelByActualName)
-            .filter(Optional::isPresent).map(Optional::get)
-            .collect(Collectors.toList());
+        return getLabelsOfIssue(issue, label -> true);
+    }
+
+    public List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate) {
+        List<TurboLabel> result = new ArrayList<>();
+        for (String labelName : issue.getLabels()) {
+            TurboLabel label = labelsByActualName.get(labelName);
+            if (label != null && predicate.test(label)) {
+                result.add(label);
+            }
+        }
+        return result;
     }
 
     @SuppressWarnings("unused")
@@ -0,0 +1,124 @@
+package backend.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The difference between two successive models of the same repository.
+ *
+ * Resources which are unchanged by an update are carried over from one model to the next,
+ * so issues are compared by identity: an issue whose instance was replaced is considered changed.
+ * Labels, milestones and users are compared by value.
+ */
+public class ModelDelta {
+
+    private final Model before;
+    private final Model after;
+
+    private final List<TurboIssue> addedIssues;
+    private final List<TurboIssue> changedIssues;
+    private final List<TurboIssue> removedIssues;
+    private final boolean resourcesChanged;
+
+    private ModelDelta(Model before, Model after) {
+        assert before.getRepoId().equals(after.getRepoId());
+
+        this.before = before;
+        this.after = after;
+
+        List<TurboIssue> added = new ArrayList<>();
+        List<TurboIssue> changed = new ArrayList<>();
+        List<TurboIssue> removed = new ArrayList<>();
+
+        if (before.getIssues() != after.getIssues()) {
+            for (TurboIssue issue : after.getIssues()) {
+                TurboIssue previous = before.getIssueById(issue.getId()).orElse(null);
+                if (previous == null) {
+                    added.add(issue);
+                } else if (previous != issue) {
+                    changed.add(issue);
+                }
+            }
+            for (TurboIssue issue : before.getIssues()) {
+                if (!after.getIssueById(issue.getId()).isPresent()) {
+                    removed.add(issue);
+                }
+            }
+        }
+
+        this.addedIssues = Collections.unmodifiableList(added);
+        this.changedIssues = Collections.unmodifiableList(changed);
+        this.removedIssues = Collections.unmodifiableList(removed);
+        this.resourcesChanged = !before.getLabels().equals(after.getLabels())
+                || !before.getMilestones().equals(after.getMilestones())
+                || !before.getUsers().equals(after.getUsers());
+    }
+
+    /**
+     * Computes the difference between two models of the same repository.
+     *
+     * @param before the model before the update
+     * @param after the model after the update
+     * @return the changes which turn before into after
+     */
+    public static ModelDelta between(Model before, Model after) {
+        return new ModelDelta(before, after);
+    }
+
+    public String getRepoId() {
+        return after.getRepoId();
+    }
+
+    public Model getBefore() {
+        return before;
+    }
+
+    public Model getAfter() {
+        return after;
+    }
+
+    /**
+     * @return issues present in the new model but not the old one, as they are in the new model
+     */
+    public List<TurboIssue> getAddedIssues() {
+        return addedIssues;
+    }
+
+    /**
+     * @return issues present in both models whose instances differ, as they are in the new model
+     */
+    public List<TurboIssue> getChangedIssues() {
+        return changedIssues;
+    }
+
+    /**
+     * @return issues present in the old model but not the new one, as they are in the old model
+     */
+    public List<TurboIssue> getRemovedIssues() {
+        return removedIssues;
+    }
+
+    /**
+     * @return true if labels, milestones or users differ between the models. These are referenced
+     * when evaluating filters, so any change to them may affect issues which did not change themselves.
+     */
+    public boolean hasResourceChanges() {
+        return resourcesChanged;
+    }
+
+    public boolean hasIssueChanges() {
+        return !addedIssues.isEmpty() || !changedIssues.isEmpty() || !removedIssues.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return !hasIssueChanges() && !hasResourceChanges();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d added, %d changed, %d removed issues%s", getRepoId(),
+                addedIssues.size(), changedIssues.size(), removedIssues.size(),
+                resourcesChanged ? ", resources changed" : "");
+    }
+}
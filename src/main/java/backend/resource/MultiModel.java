@@ -2,14 +2,16 @@ package backend.resource;
 
 import backend.IssueMetadata;
 import backend.interfaces.IModel;
+import com.google.common.collect.ImmutableList;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import prefs.Preferences;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Thread-safe. The only top-level state in the application.
@@ -17,7 +19,9 @@ import java.util.stream.Collectors;
 @SuppressWarnings("unused")
 public class MultiModel implements IModel {
 
-    private final HashMap<String, Model> models;
+    // Concurrent so that models can be looked up without locking while panels are
+    // being filtered in parallel. Compound operations still synchronise on this object.
+    private final Map<String, Model> models;
     private final Preferences prefs;
 
     // A pending repository is one that has been requested to load but has
@@ -28,10 +32,32 @@ public class MultiModel implements IModel {
     // Guaranteed to have a value throughout
     private String defaultRepo = null;
 
+    // Read-only concatenations of the resources of all models, shared with callers.
+    // They are built on demand and discarded whenever the set of models changes.
+    private List<TurboIssue> issuesSnapshot = null;
+    private List<TurboLabel> labelsSnapshot = null;
+    private List<TurboMilestone> milestonesSnapshot = null;
+    private List<TurboUser> usersSnapshot = null;
+
     private static final Logger logger = LogManager.getLogger(MultiModel.class.getName());
 
+    /**
+     * The models, default repository and issues at one point in time.
+     */
+    public static class Snapshot {
+        public final List<Model> models;
+        public final String defaultRepo;
+        public final List<TurboIssue> issues;
+
+        private Snapshot(List<Model> models, String defaultRepo, List<TurboIssue> issues) {
+            this.models = models;
+            this.defaultRepo = defaultRepo;
+            this.issues = issues;
+        }
+    }
+
     public MultiModel(Preferences prefs) {
-        this.models = new HashMap<>();
+        this.models = new ConcurrentHashMap<>();
         this.pendingRepositories = new HashSet<>();
         this.prefs = prefs;
     }
@@ -48,8 +74,23 @@ public class MultiModel implements IModel {
         return this;
     }
 
+    /**
+     * Replaces the model of an open repository with a newer one, e.g. once a stored model shown
+     * while the repository was being opened has been synced.
+     * @return the model replaced, or empty if the repository is no longer open
+     */
+    public synchronized Optional<Model> update(Model model) {
+        Optional<Model> previous = getModelById(model.getRepoId());
+        if (previous.isPresent()) {
+            add(model);
+            preprocessNewIssues(model);
+        }
+        return previous;
+    }
+
     private synchronized MultiModel add(Model model) {
         this.models.put(model.getRepoId(), model);
+        invalidateSnapshots();
         return this;
     }
 
@@ -63,6 +104,7 @@ public class MultiModel implements IModel {
         Optional<Model> repoModelToBeDeleted = getModelById(repoIdCorrectCase.get());
         if (repoModelToBeDeleted.isPresent()) {
             this.models.remove(repoModelToBeDeleted.get().getRepoId());
+            invalidateSnapshots();
         } else {
             logger.error("RepoModel to be deleted does not exist.");
         }
@@ -77,26 +119,76 @@ public class MultiModel implements IModel {
         return new ArrayList<>(models.values());
     }
 
+    /**
+     * @return the models, default repository and issues, read together so that none has changed in between
+     */
+    public synchronized Snapshot getSnapshot() {
+        return new Snapshot(toModels(), defaultRepo, getIssues());
+    }
+
     public synchronized MultiModel replace(List<Model> newModels) {
-        this.models.clear();
-        newModels.forEach(this::add);
+        // Models are swapped in before stale ones are removed, so that lock-free readers
+        // never observe a repository as missing while it is being replaced.
+        Set<String> newRepoIds = new HashSet<>();
+        newModels.forEach(model -> {
+            newRepoIds.add(model.getRepoId());
+            add(model);
+        });
+        this.models.keySet().retainAll(newRepoIds);
+        invalidateSnapshots();
         return this;
     }
 
-    public synchronized void insertMetadata(String repoId, Map<Integer, IssueMetadata> metadata, String currentUser) {
-        models.get(repoId).getIssues().forEach(issue -> {
+    private synchronized void invalidateSnapshots() {
+        issuesSnapshot = null;
+        labelsSnapshot = null;
+        milestonesSnapshot = null;
+        usersSnapshot = null;
+    }
+
+    /**
+     * Concatenates one kind of resource across all models into a read-only list.
+     */
+    private <T> List<T> snapshot(Function<Model, List<T>> resources) {
+        if (models.size() == 1) {
+            // Already read-only, so it can be shared as is
+            return resources.apply(models.values().iterator().next());
+        }
+        ImmutableList.Builder<T> result = ImmutableList.builder();
+        models.values().forEach(m -> result.addAll(resources.apply(m)));
+        return result.build();
+    }
+
+    /**
+     * Inserts downloaded metadata into the issues of an open repository.
+     * @return the model inserted into, if the metadata of any of its issues has changed according to their ETags;
+     * otherwise there is nothing new to store
+     */
+    public synchronized Optional<Model> insertMetadata(String repoId, Map<Integer, IssueMetadata> metadata,
+                                                       String currentUser) {
+        Model model = models.get(repoId);
+        if (model == null) {
+            return Optional.empty();
+        }
+        boolean hasChanged = false;
+        for (TurboIssue issue : model.getIssues()) {
             if (metadata.containsKey(issue.getId())) {
                 IssueMetadata toBeInserted = metadata.get(issue.getId());
 
                 // ETag comparison is based on IssueMetadata constructor for more granularity, so that we can choose
                 // to not replace events while still replacing comments in the case of same ETag.
-                // TODO move ETag comparison here when comments ETag implementation is complete.
+                // Unchanged comments are already reused when they are downloaded, as the computed
+                // properties of the metadata depend on them.
                 LocalDateTime nonSelfUpdatedAt = reconcileCreationDate(toBeInserted.getNonSelfUpdatedAt(),
                         issue.getCreatedAt(), currentUser, issue.getCreator());
+                IssueMetadata previous = issue.getMetadata();
                 issue.setMetadata(toBeInserted.reconcile(nonSelfUpdatedAt,
-                    issue.getMetadata().getEvents(), issue.getMetadata().getEventsETag()));
+                    previous.getEvents(), previous.getEventsETag()));
+                hasChanged |= !Objects.equals(previous.getEventsETag(), issue.getMetadata().getEventsETag())
+                    || !Objects.equals(previous.getCommentsETag(), issue.getMetadata().getCommentsETag());
             }
-        });
+        }
+        return hasChanged ? Optional.of(model) : Optional.empty();
     }
 
     private static LocalDateTime reconcileCreationDate(LocalDateTime lastNonSelfUpdate,
@@ -131,37 +223,39 @@ public class MultiModel implements IModel {
 
     @Override
     public synchronized List<TurboIssue> getIssues() {
-        List<TurboIssue> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getIssues()));
-        return result;
+        if (issuesSnapshot == null) {
+            issuesSnapshot = snapshot(Model::getIssues);
+        }
+        return issuesSnapshot;
     }
 
     @Override
     public synchronized List<TurboLabel> getLabels() {
-        List<TurboLabel> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getLabels()));
-        return result;
+        if (labelsSnapshot == null) {
+            labelsSnapshot = snapshot(Model::getLabels);
+        }
+        return labelsSnapshot;
     }
 
     @Override
     public synchronized List<TurboMilestone> getMilestones() {
-        List<TurboMilestone> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getMilestones()));
-        return result;
+        if (milestonesSnapshot == null) {
+            milestonesSnapshot = snapshot(Model::getMilestones);
+        }
+        return milestonesSnapshot;
     }
 
     @Override
     public synchronized List<TurboUser> getUsers() {
-        List<TurboUser> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getUsers()));
-        return result;
+        if (usersSnapshot == null) {
+            usersSnapshot = snapshot(Model::getUsers);
+        }
+        return usersSnapshot;
     }
 
     @Override
     public Optional<Model> getModelById(String repoId) {
-        return models.containsKey(repoId)
-            ? Optional.of(models.get(repoId))
-            : Optional.empty();
+        return Optional.ofNullable(models.get(repoId));
     }
 
     @Override
@@ -173,16 +267,14 @@ public class MultiModel implements IModel {
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate) {
         return getModelById(issue.getRepoId())
-            .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
-            .get().stream()
-            .filter(predicate)
-            .collect(Collectors.toList());
+            .map(m -> m.getLabelsOfIssue(issue, predicate))
+            .get();
     }
 
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
         return getModelById(issue.getRepoId())
-            .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
+            .map(m -> m.getLabelsOfIssue(issue))
             .get();
     }
 
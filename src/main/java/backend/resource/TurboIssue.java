@@ -12,8 +12,11 @@ import util.Utility;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static util.Utility.replaceNull;
@@ -46,6 +49,9 @@ public class TurboIssue {
     // Mutable
     private String title;
     private String description;
+    // Where the description is kept out of the heap by the store, it is decoded from here on demand
+    // instead, and may be cached softly by the source; description is then unused.
+    private Supplier<String> descriptionSource;
     private LocalDateTime updatedAt;
     private int commentCount;
     private boolean isOpen;
@@ -106,6 +112,7 @@ public class TurboIssue {
         this.isPullRequest = issue.isPullRequest;
 
         this.description = issue.description;
+        this.descriptionSource = issue.descriptionSource;
         this.updatedAt = replaceNull(issue.updatedAt, this.createdAt);
         this.commentCount = issue.commentCount;
         this.isOpen = issue.isOpen;
@@ -164,7 +171,7 @@ public class TurboIssue {
         this.labels = issue.getLabels();
         this.milestone = issue.getMilestone();
 
-        this.metadata = IssueMetadata.empty();
+        this.metadata = issue.getMetadata().map(IssueMetadata::fromSerializable).orElseGet(IssueMetadata::empty);
         this.repoId = repoId;
         this.markedReadAt = Optional.empty();
     }
@@ -219,21 +226,23 @@ public class TurboIssue {
      */
     public static List<TurboIssue> reconcile(String repoId, List<TurboIssue> existing, List<TurboIssue> changed) {
         List<TurboIssue> existingCopy = new ArrayList<>(existing);
+        Map<Integer, Integer> indexById = indexById(existingCopy);
+
         for (TurboIssue issue : changed) {
             int id = issue.getId();
 
-            // TODO O(n^2), fix by preprocessing and copying into a map
-            Optional<Integer> corresponding = findIssueWithId(existingCopy, id);
-            if (corresponding.isPresent()) {
+            Integer corresponding = indexById.get(id);
+            if (corresponding != null) {
 
                 // issue is constructed from an external Issue object.
                 // It won't have the transient state that its TurboIssue
                 // counterpart has, so we have to explicitly transfer it.
                 TurboIssue newIssue = new TurboIssue(issue);
-                newIssue.transferTransientState(existingCopy.get(corresponding.get()));
+                newIssue.transferTransientState(existingCopy.get(corresponding));
 
-                existingCopy.set(corresponding.get(), newIssue);
+                existingCopy.set(corresponding, newIssue);
             } else {
+                indexById.put(id, existingCopy.size());
                 existingCopy.add(new TurboIssue(issue));
             }
         }
@@ -250,14 +259,18 @@ public class TurboIssue {
     public static List<TurboIssue> combineWithPullRequests(List<TurboIssue> issues,
                                                            List<PullRequest> pullRequests) {
         List<TurboIssue> issuesCopy = new ArrayList<>(issues);
+        if (pullRequests.isEmpty()) {
+            return issuesCopy;
+        }
+        Map<Integer, Integer> indexById = indexById(issuesCopy);
 
         for (PullRequest pullRequest : pullRequests) {
             int id = pullRequest.getNumber();
 
-            Optional<Integer> corresponding = findIssueWithId(issuesCopy, id);
-            if (corresponding.isPresent()) {
-                TurboIssue issue = issuesCopy.get(corresponding.get());
-                issuesCopy.set(corresponding.get(), issue.combineWithPullRequest(pullRequest));
+            Integer corresponding = indexById.get(id);
+            if (corresponding != null) {
+                TurboIssue issue = issuesCopy.get(corresponding);
+                issuesCopy.set(corresponding, issue.combineWithPullRequest(pullRequest));
             } else {
                 String errorMsg = "No corresponding issue for pull request " + pullRequest;
                 logger.error(errorMsg);
@@ -267,6 +280,18 @@ public class TurboIssue {
         return issuesCopy;
     }
 
+    /**
+     * Maps the ids of issues to their positions in the given list. Where ids are duplicated,
+     * the first position is kept, as with findIssueWithId.
+     */
+    private static Map<Integer, Integer> indexById(List<TurboIssue> issues) {
+        Map<Integer, Integer> indexById = new HashMap<>(issues.size() * 2);
+        for (int i = 0; i < issues.size(); i++) {
+            indexById.putIfAbsent(issues.get(i).getId(), i);
+        }
+        return indexById;
+    }
+
     /**
      * Combines data from a corresponding pull request with data in this issue
      * This method returns a new combined issue and does not mutate this issue
@@ -325,10 +350,18 @@ public class TurboIssue {
         this.title = title;
     }
     public String getDescription() {
-        return description;
+        return descriptionSource == null ? description : descriptionSource.get();
     }
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionSource = null;
+    }
+    /**
+     * Sets the description to be read on demand from the given source, rather than kept in memory.
+     */
+    public void setDescriptionSource(Supplier<String> descriptionSource) {
+        this.description = null;
+        this.descriptionSource = descriptionSource;
     }
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
@@ -427,7 +460,7 @@ public class TurboIssue {
                 !(assignee != null ? !assignee.equals(issue.assignee) : issue.assignee != null) &&
                 !(createdAt != null ? !createdAt.equals(issue.createdAt) : issue.createdAt != null) &&
                 !(creator != null ? !creator.equals(issue.creator) : issue.creator != null) &&
-                !(description != null ? !description.equals(issue.description) : issue.description != null) &&
+                hasSameDescription(issue) &&
                 !(labels != null ? !labels.equals(issue.labels) : issue.labels != null) &&
                 !(milestone != null ? !milestone.equals(issue.milestone) : issue.milestone != null) &&
                 !(title != null ? !title.equals(issue.title) : issue.title != null) &&
@@ -435,6 +468,18 @@ public class TurboIssue {
                 !(markedReadAt != null ? !markedReadAt.equals(issue.markedReadAt) : issue.markedReadAt != null);
     }
 
+    /**
+     * Descriptions read from the same source are equal without having to be read.
+     */
+    private boolean hasSameDescription(TurboIssue issue) {
+        if (descriptionSource != null && descriptionSource == issue.descriptionSource) {
+            return true;
+        }
+        String thisDescription = getDescription();
+        String otherDescription = issue.getDescription();
+        return thisDescription != null ? thisDescription.equals(otherDescription) : otherDescription == null;
+    }
+
     @Override
     public int hashCode() {
         int result = id;
@@ -442,6 +487,7 @@ public class TurboIssue {
         result = 31 * result + (createdAt != null ? createdAt.hashCode() : 0);
         result = 31 * result + (isPullRequest ? 1 : 0);
         result = 31 * result + (title != null ? title.hashCode() : 0);
+        String description = getDescription();
         result = 31 * result + (description != null ? description.hashCode() : 0);
         result = 31 * result + (updatedAt != null ? updatedAt.hashCode() : 0);
         result = 31 * result + (markedReadAt != null ? markedReadAt.hashCode() : 0);
@@ -74,15 +74,15 @@ public class TurboLabel implements Comparable<TurboLabel> {
     private void ______METHODS______() {
     }
 
-    public static Optional<String> getDelimiter(String name) {
+    // Escaping due to constants not being valid regexes
+    private static final Pattern DELIMITER_PATTERN = Pattern.compile(String.format("^[^\\%s\\%s]+(\\%s|\\%s)",
+        EXCLUSIVE_DELIMITER,
+        NONEXCLUSIVE_DELIMITER,
+        EXCLUSIVE_DELIMITER,
+        NONEXCLUSIVE_DELIMITER));
 
-        // Escaping due to constants not being valid regexes
-        Pattern p = Pattern.compile(String.format("^[^\\%s\\%s]+(\\%s|\\%s)",
-            EXCLUSIVE_DELIMITER,
-            NONEXCLUSIVE_DELIMITER,
-            EXCLUSIVE_DELIMITER,
-            NONEXCLUSIVE_DELIMITER));
-        Matcher m = p.matcher(name);
+    public static Optional<String> getDelimiter(String name) {
+        Matcher m = DELIMITER_PATTERN.matcher(name);
 
         if (m.find()) {
             return Optional.of(m.group(1));
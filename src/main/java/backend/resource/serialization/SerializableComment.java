@@ -0,0 +1,51 @@
+package backend.resource.serialization;
+
+import github.ReviewComment;
+import org.eclipse.egit.github.core.Comment;
+
+/**
+ * Only the parts of a comment which issue metadata is computed from are kept.
+ *
+ * Warnings are suppressed to prevent complaints about fields not being final.
+ * They are this way to give them default values.
+ */
+@SuppressWarnings("PMD")
+public class SerializableComment {
+    private long id = 0;
+    private String user = "";
+    private long createdAt = 0; // Milliseconds since the epoch
+    private long updatedAt = 0;
+    private boolean isReviewComment = false;
+
+    public SerializableComment(Comment comment) {
+        this.id = comment.getId();
+        this.user = comment.getUser() == null ? null : comment.getUser().getLogin();
+        this.createdAt = comment.getCreatedAt() == null ? 0 : comment.getCreatedAt().getTime();
+        this.updatedAt = comment.getUpdatedAt() == null ? this.createdAt : comment.getUpdatedAt().getTime();
+        this.isReviewComment = comment instanceof ReviewComment;
+    }
+
+    public SerializableComment(long id, String user, long createdAt, long updatedAt, boolean isReviewComment) {
+        this.id = id;
+        this.user = user;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.isReviewComment = isReviewComment;
+    }
+
+    public long getId() {
+        return id;
+    }
+    public String getUser() {
+        return user;
+    }
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+    public boolean isReviewComment() {
+        return isReviewComment;
+    }
+}
@@ -0,0 +1,26 @@
+package backend.resource.serialization;
+
+import backend.DownloadCheckpoint;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 100% immutable.
+ */
+public class SerializableDownloadCheckpoint {
+    public final String repoId;
+    public final int completedPages;
+    public final long startTime;
+
+    public final List<SerializableIssue> issues;
+
+    public SerializableDownloadCheckpoint(DownloadCheckpoint checkpoint) {
+        this.repoId = checkpoint.repoId;
+        this.completedPages = checkpoint.completedPages;
+        this.startTime = checkpoint.startTime.getTime();
+
+        this.issues = checkpoint.issues.stream()
+            .map(SerializableIssue::new).collect(Collectors.toList());
+    }
+}
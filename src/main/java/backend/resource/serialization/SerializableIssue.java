@@ -25,6 +25,8 @@ public class SerializableIssue {
     private Optional<String> assignee = Optional.empty();
     private List<String> labels = new ArrayList<>();
     private Optional<Integer> milestone = Optional.empty();
+    // Absent when the issue has no metadata, and in stores written before metadata was kept
+    private SerializableIssueMetadata metadata = null;
 
     public SerializableIssue(TurboIssue issue) {
         this.id = issue.getId();
@@ -39,6 +41,7 @@ public class SerializableIssue {
         this.assignee = issue.getAssignee();
         this.labels = issue.getLabels();
         this.milestone = issue.getMilestone();
+        this.metadata = issue.getMetadata().isEmpty() ? null : new SerializableIssueMetadata(issue.getMetadata());
     }
 
     public int getId() {
@@ -77,4 +80,7 @@ public class SerializableIssue {
     public Optional<Integer> getMilestone() {
         return milestone;
     }
+    public Optional<SerializableIssueMetadata> getMetadata() {
+        return Optional.ofNullable(metadata);
+    }
 }
@@ -0,0 +1,46 @@
+package backend.resource.serialization;
+
+import github.IssueEventType;
+import github.TurboIssueEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Warnings are suppressed to prevent complaints about fields not being final.
+ * They are this way to give them default values.
+ */
+@SuppressWarnings("PMD")
+public class SerializableIssueEvent {
+    private IssueEventType type = null;
+    private String actor = "";
+    private long date = 0; // Milliseconds since the epoch
+    private List<String> details = new ArrayList<>();
+
+    public SerializableIssueEvent(TurboIssueEvent event) {
+        this.type = event.getType();
+        this.actor = event.getActor() == null ? null : event.getActor().getLogin();
+        this.date = event.getDate().getTime();
+        this.details = event.getDetails();
+    }
+
+    public SerializableIssueEvent(IssueEventType type, String actor, long date, List<String> details) {
+        this.type = type;
+        this.actor = actor;
+        this.date = date;
+        this.details = details;
+    }
+
+    public IssueEventType getType() {
+        return type;
+    }
+    public String getActor() {
+        return actor;
+    }
+    public long getDate() {
+        return date;
+    }
+    public List<String> getDetails() {
+        return details;
+    }
+}
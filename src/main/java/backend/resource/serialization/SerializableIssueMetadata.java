@@ -0,0 +1,63 @@
+package backend.resource.serialization;
+
+import backend.IssueMetadata;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Warnings are suppressed to prevent complaints about fields not being final.
+ * They are this way to give them default values.
+ */
+@SuppressWarnings("PMD")
+public class SerializableIssueMetadata {
+    private List<SerializableIssueEvent> events = new ArrayList<>();
+    private List<SerializableComment> comments = new ArrayList<>();
+    private String eventsETag = "";
+    private String commentsETag = "";
+    private String user = "";
+    private LocalDateTime nonSelfUpdatedAt = null;
+
+    public SerializableIssueMetadata(IssueMetadata metadata) {
+        this.events = metadata.getEvents().stream()
+            .map(SerializableIssueEvent::new).collect(Collectors.toList());
+        this.comments = metadata.getComments().stream()
+            .map(SerializableComment::new).collect(Collectors.toList());
+        this.eventsETag = metadata.getEventsETag();
+        this.commentsETag = metadata.getCommentsETag();
+        this.user = metadata.getUser();
+        this.nonSelfUpdatedAt = metadata.getNonSelfUpdatedAt();
+    }
+
+    public SerializableIssueMetadata(List<SerializableIssueEvent> events, List<SerializableComment> comments,
+                                     String eventsETag, String commentsETag,
+                                     String user, LocalDateTime nonSelfUpdatedAt) {
+        this.events = events;
+        this.comments = comments;
+        this.eventsETag = eventsETag;
+        this.commentsETag = commentsETag;
+        this.user = user;
+        this.nonSelfUpdatedAt = nonSelfUpdatedAt;
+    }
+
+    public List<SerializableIssueEvent> getEvents() {
+        return events;
+    }
+    public List<SerializableComment> getComments() {
+        return comments;
+    }
+    public String getEventsETag() {
+        return eventsETag;
+    }
+    public String getCommentsETag() {
+        return commentsETag;
+    }
+    public String getUser() {
+        return user;
+    }
+    public LocalDateTime getNonSelfUpdatedAt() {
+        return nonSelfUpdatedAt;
+    }
+}
@@ -12,8 +12,9 @@ public class DownloadMetadataTaskStub extends DownloadMetadataTask {
     public DownloadMetadataTaskStub(TaskRunner taskRunner,
                                     DummyRepo repo,
                                     String repoId,
-                                    List<TurboIssue> issuesToUpdate) {
-        super(taskRunner, repo, repoId, issuesToUpdate);
+                                    List<TurboIssue> issuesToUpdate,
+                                    int concurrency) {
+        super(taskRunner, repo, repoId, issuesToUpdate, concurrency);
     }
 
     @Override
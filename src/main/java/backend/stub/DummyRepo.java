@@ -21,6 +21,8 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public class DummyRepo implements Repo {
 
@@ -130,10 +132,26 @@ public class DummyRepo implements Repo {
     }
 
     @Override
+    public Optional<Set<String>> getNewEventTypes(String repoId) {
+        // Dummy repositories have no events feed, so they are always updated in full
+        return Optional.empty();
+    }
+
+    @Override
+    public void forgetLastEventsPoll(String repoId) {
+        // Nor is there a poll to forget
+    }
+
     public List<TurboIssue> getIssues(String repoId) {
         return getRepoState(repoId).getIssues();
     }
 
+    @Override
+    public ImmutablePair<List<TurboIssue>, Integer> getIssuesPage(String repoId, int page) {
+        // All issues fit on the first page
+        return new ImmutablePair<>(page == 1 ? getIssues(repoId) : new ArrayList<>(), 1);
+    }
+
     @Override
     public List<TurboLabel> getLabels(String repoId) {
         return getRepoState(repoId).getLabels();
@@ -150,7 +168,7 @@ public class DummyRepo implements Repo {
     }
 
     @Override
-    public ImmutablePair<List<TurboIssueEvent>, String> getUpdatedEvents
+    public synchronized ImmutablePair<List<TurboIssueEvent>, String> getUpdatedEvents
             (String repoId, int issueId, String currentETag) {
         ImmutablePair<List<TurboIssueEvent>, String> result = getRepoState(repoId).getEvents(issueId, currentETag);
 
@@ -160,7 +178,7 @@ public class DummyRepo implements Repo {
     }
 
     @Override
-    public List<Comment> getComments(String repoId, int issueId) {
+    public synchronized List<Comment> getComments(String repoId, int issueId) {
         apiQuota--;
         return getRepoState(repoId).getComments(issueId);
     }
@@ -172,6 +190,12 @@ public class DummyRepo implements Repo {
         return result;
     }
 
+    @Override
+    public ImmutablePair<List<Comment>, String> getUpdatedComments(String repoId, TurboIssue issue,
+                                                                   String currentETag) {
+        return new ImmutablePair<>(getAllComments(repoId, issue), currentETag);
+    }
+
     @Override
     public List<ReviewComment> getReviewComments(String repoId, int pullRequestId) {
         return new ArrayList<>();
@@ -198,4 +222,20 @@ public class DummyRepo implements Repo {
         return new ImmutablePair<>(apiQuota, new Date().getTime() + 2700000);
     }
 
+    @Override
+    public synchronized int getRemainingRequests() {
+        return apiQuota;
+    }
+
+    // Dummy repositories are not subject to an hourly limit
+    @Override
+    public int getRequestLimit() {
+        return -1;
+    }
+
+    @Override
+    public long getRequestsResetTime() {
+        return 0;
+    }
+
 }
@@ -1,5 +1,6 @@
 package backend.stub;
 
+import backend.DownloadCheckpoint;
 import backend.IssueMetadata;
 import backend.UserCredentials;
 import backend.github.CheckRateLimitTask;
@@ -7,6 +8,7 @@ import backend.github.DownloadRepoTask;
 import backend.github.ReplaceIssueLabelsTask;
 import backend.github.UpdateModelTask;
 import backend.interfaces.RepoSource;
+import backend.interfaces.RequestPriority;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -14,7 +16,9 @@ import util.Futures;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class DummySource extends RepoSource {
 
@@ -33,19 +37,21 @@ public class DummySource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Model> downloadRepository(String repoId) {
-        return addTask(new DownloadRepoTask(this, dummy, repoId)).response;
+    public CompletableFuture<Model> downloadRepository(String repoId, Optional<DownloadCheckpoint> resumeFrom,
+                                                       Consumer<DownloadCheckpoint> onCheckpoint) {
+        return addTask(new DownloadRepoTask(this, dummy, repoId, resumeFrom, onCheckpoint)).response;
     }
 
     @Override
-    public CompletableFuture<Model> updateModel(Model model) {
-        return addTask(new UpdateModelTask(this, dummy, model)).response;
+    public CompletableFuture<Model> updateModel(Model model, RequestPriority priority) {
+        return addTask(new UpdateModelTask(this, dummy, model, priority)).response;
     }
 
     @Override
     public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId,
                                                                            List<TurboIssue> issues) {
-        return addTask(new DownloadMetadataTaskStub(this, dummy, repoId, issues)).response;
+        return addTask(new DownloadMetadataTaskStub(this, dummy, repoId, issues,
+                                                    getMetadataDownloadConcurrency())).response;
     }
 
     @Override
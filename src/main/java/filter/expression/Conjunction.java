@@ -56,6 +56,13 @@ public class Conjunction implements FilterExpression {
                 && right.isSatisfiedBy(model, issue, info);
     }
 
+    @Override
+    public Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info) {
+        Predicate<TurboIssue> left = this.left.compile(model, info);
+        Predicate<TurboIssue> right = this.right.compile(model, info);
+        return issue -> left.test(issue) && right.test(issue);
+    }
+
     private boolean containsDuplicateQualifierTypes() {
         List<QualifierType> nonLabelQualifierTypes = getQualifierTypes().stream()
             .filter(pn -> !pn.equals(QualifierType.LABEL))
@@ -53,6 +53,13 @@ public class Disjunction implements FilterExpression {
                 || right.isSatisfiedBy(model, issue, info);
     }
 
+    @Override
+    public Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info) {
+        Predicate<TurboIssue> left = this.left.compile(model, info);
+        Predicate<TurboIssue> right = this.right.compile(model, info);
+        return issue -> left.test(issue) || right.test(issue);
+    }
+
     @Override
     public boolean canBeAppliedToIssue() {
         return false;
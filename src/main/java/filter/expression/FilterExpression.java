@@ -16,6 +16,12 @@ public interface FilterExpression {
 
     boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info);
 
+    // Compiles this filter expression into a predicate on issues, which is equivalent
+    // to isSatisfiedBy but does work that does not depend on the issue only once.
+    // It should be compiled again whenever the model changes.
+
+    Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info);
+
     // Filter expressions may only be applied if they contain no ambiguity
     // => they must contain only qualifiers or conjunctions thereof. Disjunctions
     // and negations can't be interpreted in order to be applied.
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -22,6 +23,8 @@ public class Qualifier implements FilterExpression {
     public static final Qualifier EMPTY = new Qualifier(QualifierType.EMPTY, "");
     public static final Qualifier FALSE = new Qualifier(QualifierType.FALSE, "");
 
+    private static final Predicate<TurboIssue> NOTHING = issue -> false;
+
     private final QualifierType type;
 
     // Only one of these will be present at a time
@@ -118,6 +121,15 @@ public class Qualifier implements FilterExpression {
      * Should always be used over isSatisfiedBy.
      */
     public static boolean process(IModel model, FilterExpression expr, TurboIssue issue) {
+        return compileFilter(model, expr).test(issue);
+    }
+
+    /**
+     * Compiles a filter expression into a predicate which behaves like process.
+     * Meta-qualifiers are resolved once here, so the result should be used when
+     * testing many issues against the same expression and model.
+     */
+    public static Predicate<TurboIssue> compileFilter(IModel model, FilterExpression expr) {
         FilterExpression exprWithNormalQualifiers = expr.filter(Qualifier::shouldNotBeStripped);
         List<Qualifier> metaQualifiers = expr.find(Qualifier::isMetaQualifier);
 
@@ -133,7 +145,7 @@ public class Qualifier implements FilterExpression {
                 exprWithNormalQualifiers);
         }
 
-        return exprWithNormalQualifiers.isSatisfiedBy(model, issue, new MetaQualifierInfo(metaQualifiers));
+        return exprWithNormalQualifiers.compile(model, new MetaQualifierInfo(metaQualifiers));
     }
 
     private static Optional<Integer> getCurrentMilestoneIndex(List<TurboMilestone> allMilestones) {
@@ -201,52 +213,57 @@ public class Qualifier implements FilterExpression {
 
     @Override
     public boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info) {
+        return compile(model, info).test(issue);
+    }
+
+    @Override
+    public Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info) {
         assert type != null;
 
         // The empty qualifier is satisfied by anything
-        if (isEmpty()) return true;
+        if (isEmpty()) return issue -> true;
 
         // The false qualifier is satisfied by nothing
-        if (isFalse()) return false;
+        if (isFalse()) return NOTHING;
 
         switch (type) {
         case ID:
-            return idSatisfies(issue);
+            return compileId();
         case KEYWORD:
-            return keywordSatisfies(issue, info);
+            return compileKeyword(info);
         case TITLE:
-            return titleSatisfies(issue);
+            return compileTitle();
         case DESCRIPTION:
-            return bodySatisfies(issue);
+            return compileBody();
         case MILESTONE:
-            return milestoneSatisfies(model, issue);
+            return compileMilestone(model);
         case LABEL:
-            return labelsSatisfy(model, issue);
+            return compileLabels(model);
         case AUTHOR:
-            return authorSatisfies(issue);
+            return compileAuthor();
         case ASSIGNEE:
-            return assigneeSatisfies(model, issue);
+            return compileAssignee(model);
         case INVOLVES:
-            return involvesSatisfies(model, issue);
+            return compileAuthor().or(compileAssignee(model));
         case TYPE:
-            return typeSatisfies(issue);
+            return compileType();
         case STATE:
-            return stateSatisfies(issue);
+            return compileState();
         case HAS:
-            return satisfiesHasConditions(issue);
+            return compileHasConditions();
         case NO:
-            return satisfiesNoConditions(issue);
+            return compileNoConditions();
         case IS:
-            return satisfiesIsConditions(issue);
+            return compileIsConditions();
         case CREATED:
-            return satisfiesCreationDate(issue);
+            return compileCreationDate();
         case UPDATED:
-            return satisfiesUpdatedHours(issue);
+            return compileUpdatedHours();
         case REPO:
-            return satisfiesRepo(issue);
+            return compileRepo();
         default:
             assert false : "Missing case for " + type;
-            return false;
+            return NOTHING;
         }
     }
 
@@ -452,10 +469,11 @@ public class Qualifier implements FilterExpression {
         if (sortKeys.isEmpty()) {
             return (a, b) -> 0;
         }
+        List<Comparator<TurboIssue>> comparators = sortKeys.stream()
+                .map(key -> getSortComparator(model, key.key, key.inverted, isSortableByNonSelfUpdates))
+                .collect(Collectors.toList());
         return (a, b) -> {
-            for (SortKey key : sortKeys) {
-                Comparator<TurboIssue> comparator =
-                        getSortComparator(model, key.key, key.inverted, isSortableByNonSelfUpdates);
+            for (Comparator<TurboIssue> comparator : comparators) {
                 int result = comparator.compare(a, b);
                 if (result != 0) {
                     return result;
@@ -569,14 +587,14 @@ public class Qualifier implements FilterExpression {
     public static Comparator<TurboIssue> getLabelGroupComparator(IModel model, String key, boolean inverted) {
         // Strip trailing ., if any
         final String group = key.replaceAll("\\.$", "");
-        return (a, b) -> {
 
-            // Matches labels belong to the given group
-            Predicate<TurboLabel> sameGroup = l ->
-                l.getGroup().isPresent() && l.getGroup().get().equals(group);
+        // Matches labels belong to the given group
+        Predicate<TurboLabel> sameGroup = l ->
+            l.getGroup().isPresent() && l.getGroup().get().equals(group);
 
-            Comparator<TurboLabel> labelComparator = (x, y) -> x.getName().compareTo(y.getName());
+        Comparator<TurboLabel> labelComparator = (x, y) -> x.getName().compareTo(y.getName());
 
+        return (a, b) -> {
             List<TurboLabel> aLabels = model.getLabelsOfIssue(a, sameGroup);
             List<TurboLabel> bLabels = model.getLabelsOfIssue(b, sameGroup);
             Collections.sort(aLabels, labelComparator);
@@ -616,16 +634,18 @@ public class Qualifier implements FilterExpression {
         };
     }
 
-    private boolean idSatisfies(TurboIssue issue) {
+    private Predicate<TurboIssue> compileId() {
         if (number.isPresent()) {
-            return issue.getId() == number.get();
+            int id = number.get();
+            return issue -> issue.getId() == id;
         } else if (numberRange.isPresent()) {
-            return numberRange.get().encloses(issue.getId());
+            NumberRange idRange = numberRange.get();
+            return issue -> idRange.encloses(issue.getId());
         }
-        return false;
+        return NOTHING;
     }
 
-    private boolean satisfiesUpdatedHours(TurboIssue issue) {
+    private Predicate<TurboIssue> compileUpdatedHours() {
         NumberRange updatedRange;
 
         if (numberRange.isPresent()) {
@@ -633,119 +653,132 @@ public class Qualifier implements FilterExpression {
         } else if (number.isPresent()) {
             updatedRange = new NumberRange(null, number.get(), true);
         } else {
-            return false;
+            return NOTHING;
         }
 
-        LocalDateTime dateOfUpdate = issue.getUpdatedAt();
-        int hoursSinceUpdate = Utility.safeLongToInt(dateOfUpdate.until(getCurrentTime(), ChronoUnit.HOURS));
-        return updatedRange.encloses(hoursSinceUpdate);
+        LocalDateTime currentTime = getCurrentTime();
+        return issue -> {
+            LocalDateTime dateOfUpdate = issue.getUpdatedAt();
+            int hoursSinceUpdate = Utility.safeLongToInt(dateOfUpdate.until(currentTime, ChronoUnit.HOURS));
+            return updatedRange.encloses(hoursSinceUpdate);
+        };
     }
 
-    private boolean satisfiesRepo(TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        return issue.getRepoId().equalsIgnoreCase(content.get());
+    private Predicate<TurboIssue> compileRepo() {
+        if (!content.isPresent()) return NOTHING;
+        String repoId = content.get();
+        return issue -> issue.getRepoId().equalsIgnoreCase(repoId);
     }
 
-    private boolean satisfiesCreationDate(TurboIssue issue) {
-        LocalDate creationDate = issue.getCreatedAt().toLocalDate();
+    private Predicate<TurboIssue> compileCreationDate() {
         if (date.isPresent()) {
-            return creationDate.isEqual(date.get());
+            LocalDate creationDate = date.get();
+            return issue -> issue.getCreatedAt().toLocalDate().isEqual(creationDate);
         } else if (dateRange.isPresent()) {
-            return dateRange.get().encloses(creationDate);
+            DateRange creationDateRange = dateRange.get();
+            return issue -> creationDateRange.encloses(issue.getCreatedAt().toLocalDate());
         } else {
-            return false;
+            return NOTHING;
         }
     }
 
-    private boolean satisfiesHasConditions(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> compileHasConditions() {
+        if (!content.isPresent()) return NOTHING;
         switch (content.get()) {
         case "label":
         case "labels":
-            return issue.getLabels().size() > 0;
+            return issue -> issue.getLabels().size() > 0;
         case "milestone":
         case "milestones":
         case "m":
-            assert issue.getMilestone() != null;
-            return issue.getMilestone().isPresent();
+            return issue -> {
+                assert issue.getMilestone() != null;
+                return issue.getMilestone().isPresent();
+            };
         case "assignee":
         case "assignees":
         case "as":
-            assert issue.getAssignee() != null;
-            return issue.getAssignee().isPresent();
+            return issue -> {
+                assert issue.getAssignee() != null;
+                return issue.getAssignee().isPresent();
+            };
         default:
-            return false;
+            return NOTHING;
         }
     }
 
-    private boolean satisfiesNoConditions(TurboIssue issue) {
-        return content.isPresent() && !satisfiesHasConditions(issue);
+    private Predicate<TurboIssue> compileNoConditions() {
+        if (!content.isPresent()) return NOTHING;
+        return compileHasConditions().negate();
     }
 
-    private boolean satisfiesIsConditions(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> compileIsConditions() {
+        if (!content.isPresent()) return NOTHING;
         switch (content.get()) {
         case "open":
         case "closed":
-            return stateSatisfies(issue);
+            return compileState();
         case "pr":
         case "issue":
-            return typeSatisfies(issue);
+            return compileType();
         case "merged":
-            return issue.isPullRequest() && !issue.isOpen();
+            return issue -> issue.isPullRequest() && !issue.isOpen();
         case "unmerged":
-            return issue.isPullRequest() && issue.isOpen();
+            return issue -> issue.isPullRequest() && issue.isOpen();
         case "read":
-            return issue.isCurrentlyRead();
+            return TurboIssue::isCurrentlyRead;
         case "unread":
-            return !issue.isCurrentlyRead();
+            return issue -> !issue.isCurrentlyRead();
         default:
-            return false;
+            return NOTHING;
         }
     }
 
-    private boolean stateSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> compileState() {
+        if (!content.isPresent()) return NOTHING;
         String content = this.content.get().toLowerCase();
         if (content.contains("open")) {
-            return issue.isOpen();
+            return TurboIssue::isOpen;
         } else if (content.contains("closed")) {
-            return !issue.isOpen();
+            return issue -> !issue.isOpen();
         } else {
-            return false;
+            return NOTHING;
         }
     }
 
-    private boolean assigneeSatisfies(IModel model, TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        Optional<TurboUser> assignee = model.getAssigneeOfIssue(issue);
-
-        if (!assignee.isPresent()) return false;
-
+    private Predicate<TurboIssue> compileAssignee(IModel model) {
+        if (!content.isPresent()) return NOTHING;
         String content = this.content.get().toLowerCase();
-        String login = assignee.get().getLoginName() == null ? "" : assignee.get().getLoginName().toLowerCase();
-        String name = assignee.get().getRealName() == null ? "" : assignee.get().getRealName().toLowerCase();
 
-        return login.contains(content) || name.contains(content);
-    }
+        return issue -> {
+            Optional<TurboUser> assignee = model.getAssigneeOfIssue(issue);
 
-    private boolean authorSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+            if (!assignee.isPresent()) return false;
 
-        String creator = issue.getCreator();
+            String login = assignee.get().getLoginName() == null ? "" : assignee.get().getLoginName().toLowerCase();
+            String name = assignee.get().getRealName() == null ? "" : assignee.get().getRealName().toLowerCase();
 
-        return creator.toLowerCase().contains(content.get().toLowerCase());
+            return login.contains(content) || name.contains(content);
+        };
     }
 
-    private boolean involvesSatisfies(IModel model, TurboIssue issue) {
-        return authorSatisfies(issue) || assigneeSatisfies(model, issue);
+    private Predicate<TurboIssue> compileAuthor() {
+        if (!content.isPresent()) return NOTHING;
+        String content = this.content.get().toLowerCase();
+        return issue -> issue.getCreator().toLowerCase().contains(content);
     }
 
     public static boolean labelMatches(String input, String candidate) {
+        return labelMatcher(input).test(candidate);
+    }
+
+    /**
+     * Parses the input once, returning a predicate which determines if a label name matches it.
+     */
+    private static Predicate<String> labelMatcher(String input) {
 
         // Make use of TurboLabel constructor to parse the input, avoiding duplication
         TurboLabel inputLabel = new TurboLabel("", input.toLowerCase());
-        TurboLabel candidateLabel = new TurboLabel("", candidate.toLowerCase());
 
         String group = "";
         if (inputLabel.hasGroup()) {
@@ -753,94 +786,111 @@ public class Qualifier implements FilterExpression {
         }
         String labelName = inputLabel.getName();
 
-        if (candidateLabel.hasGroup()) {
-            if (labelName.isEmpty()) {
-                // Check the group
-                if (candidateLabel.getGroup().get().contains(group)) {
-                    return true;
+        final String inputGroup = group;
+        return candidate -> {
+            TurboLabel candidateLabel = new TurboLabel("", candidate.toLowerCase());
+
+            if (candidateLabel.hasGroup()) {
+                if (labelName.isEmpty()) {
+                    // Check the group
+                    if (candidateLabel.getGroup().get().contains(inputGroup)) {
+                        return true;
+                    }
+                } else {
+                    if (candidateLabel.getGroup().get().contains(inputGroup)
+                        && candidateLabel.getName().contains(labelName)) {
+                        return true;
+                    }
                 }
             } else {
-                if (candidateLabel.getGroup().get().contains(group)
-                    && candidateLabel.getName().contains(labelName)) {
+                // Check only the label name
+                if (inputGroup.isEmpty() && !labelName.isEmpty() && candidateLabel.getName().contains(labelName)) {
                     return true;
                 }
             }
-        } else {
-            // Check only the label name
-            if (group.isEmpty() && !labelName.isEmpty() && candidateLabel.getName().contains(labelName)) {
-                return true;
-            }
-        }
-        return false;
+            return false;
+        };
     }
 
-    private boolean labelsSatisfy(IModel model, TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> compileLabels(IModel model) {
+        if (!content.isPresent()) return NOTHING;
 
         // A qualifier matches an issue if the issue is associated with some subset of the
         // labels that the qualifier expresses. It should only reject an issue if the issue
         // does not contain any labels it expresses, and not if the issue contains some label
         // it does not express.
 
-        for (TurboLabel label : model.getLabelsOfIssue(issue)) {
-            if (labelMatches(content.get(), label.getActualName())) {
-                return true;
+        // Labels are shared by many issues, so the result of matching each is remembered.
+        // The predicate may be tested from several threads.
+        Predicate<String> matcher = labelMatcher(content.get());
+        Map<String, Boolean> matches = new ConcurrentHashMap<>();
+
+        return issue -> {
+            for (TurboLabel label : model.getLabelsOfIssue(issue)) {
+                if (matches.computeIfAbsent(label.getActualName(), matcher::test)) {
+                    return true;
+                }
             }
-        }
-        return false;
+            return false;
+        };
     }
 
-    private boolean milestoneSatisfies(IModel model, TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        Optional<TurboMilestone> milestone = model.getMilestoneOfIssue(issue);
+    private Predicate<TurboIssue> compileMilestone(IModel model) {
+        if (!content.isPresent()) return NOTHING;
+        String contents = content.get().toLowerCase();
 
-        if (!milestone.isPresent()) return false;
+        return issue -> {
+            Optional<TurboMilestone> milestone = model.getMilestoneOfIssue(issue);
 
-        String contents = content.get().toLowerCase();
-        String title = milestone.get().getTitle().toLowerCase();
+            if (!milestone.isPresent()) return false;
 
-        return title.contains(contents);
+            String title = milestone.get().getTitle().toLowerCase();
+
+            return title.contains(contents);
+        };
     }
 
-    private boolean keywordSatisfies(TurboIssue issue, MetaQualifierInfo info) {
+    private Predicate<TurboIssue> compileKeyword(MetaQualifierInfo info) {
 
         if (info.getIn().isPresent()) {
             switch (info.getIn().get()) {
             case "title":
-                return titleSatisfies(issue);
+                return compileTitle();
             case "body":
             case "desc":
             case "description":
-                return bodySatisfies(issue);
+                return compileBody();
             default:
-                return false;
+                return NOTHING;
             }
         } else {
-            return titleSatisfies(issue) || bodySatisfies(issue);
+            return compileTitle().or(compileBody());
         }
     }
 
-    private boolean bodySatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        return issue.getDescription().toLowerCase().contains(content.get().toLowerCase());
+    private Predicate<TurboIssue> compileBody() {
+        if (!content.isPresent()) return NOTHING;
+        String content = this.content.get().toLowerCase();
+        return issue -> issue.getDescription().toLowerCase().contains(content);
     }
 
-    private boolean titleSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        return issue.getTitle().toLowerCase().contains(content.get().toLowerCase());
+    private Predicate<TurboIssue> compileTitle() {
+        if (!content.isPresent()) return NOTHING;
+        String content = this.content.get().toLowerCase();
+        return issue -> issue.getTitle().toLowerCase().contains(content);
     }
 
-    private boolean typeSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> compileType() {
+        if (!content.isPresent()) return NOTHING;
         String content = this.content.get().toLowerCase();
         switch (content) {
             case "issue":
-                return !issue.isPullRequest();
+                return issue -> !issue.isPullRequest();
             case "pr":
             case "pullrequest":
-                return issue.isPullRequest();
+                return TurboIssue::isPullRequest;
             default:
-                return false;
+                return NOTHING;
         }
     }
 
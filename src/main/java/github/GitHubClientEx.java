@@ -2,23 +2,30 @@ package github;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
-import org.apache.commons.io.input.NullInputStream;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.client.GitHubClient;
 import org.eclipse.egit.github.core.client.GitHubRequest;
 import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.PagedRequest;
 import util.HTLog;
 import util.IOUtilities;
 import util.Utility;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 public class GitHubClientEx extends GitHubClient {
     private static final Logger logger = HTLog.get(GitHubClientEx.class);
@@ -28,6 +35,24 @@ public class GitHubClientEx extends GitHubClient {
     // Request method for HEAD API call
     protected static final String METHOD_HEAD = "HEAD";
 
+    // The time in milliseconds at which the remaining requests are reset, as last reported; 0 if unknown
+    private volatile long requestsResetTime = 0;
+
+    protected static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    protected static final String ENCODING_GZIP = "gzip";
+
+    // The number of pages getPageIfModified keeps, discarding the least recently used first
+    private static final int MAX_CACHED_PAGES = 256;
+
+    // Pages retrieved by getPageIfModified, keyed by the path of their request and their ETag
+    private final Map<String, GitHubPageResponse<?>> pageCache = Collections.synchronizedMap(
+        new LinkedHashMap<String, GitHubPageResponse<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GitHubPageResponse<?>> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        });
+
     public GitHubClientEx() {
         super();
     }
@@ -37,16 +62,45 @@ public class GitHubClientEx extends GitHubClient {
     }
 
     /**
-     * Extends superclass method with connection timeout parameters.
+     * Extends superclass method with connection timeout parameters, and asks for compressed responses
+     * (see getStream).
+     *
+     * Connections are kept alive and reused by HttpURLConnection once their responses have been read
+     * to the end and closed, so response streams should always be closed.
      */
     @Override
     protected HttpURLConnection createConnection(String uri) throws IOException {
         HttpURLConnection connection = super.createConnection(uri);
         connection.setConnectTimeout(CONNECTION_TIMEOUT);
         connection.setReadTimeout(CONNECTION_TIMEOUT);
+        connection.setRequestProperty(HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
         return connection;
     }
 
+    /**
+     * Extends superclass method to also record the time at which the remaining requests are reset.
+     */
+    @Override
+    protected GitHubClient updateRateLimits(HttpURLConnection request) {
+        String reset = request.getHeaderField("X-RateLimit-Reset");
+        if (reset != null && !reset.isEmpty()) {
+            try {
+                requestsResetTime = Long.parseLong(reset) * 1000; // seconds to milliseconds
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid rate limit reset time " + reset);
+            }
+        }
+        return super.updateRateLimits(request);
+    }
+
+    /**
+     * @return the time in milliseconds at which the remaining requests are reset, as last reported,
+     *         or 0 if unknown
+     */
+    public long getRequestsResetTime() {
+        return requestsResetTime;
+    }
+
     /**
      * Creates a HEAD request connection to the URI
      *
@@ -111,28 +165,142 @@ public class GitHubClientEx extends GitHubClient {
         if (isOk(code)) { // 200 OK
             String updatedEtag = Utility.stripQuotes(httpRequest.getHeaderField("ETag"));
 
-            // Copy the httpRequest input stream into a byte array
-            InputStream reqIS = getStream(httpRequest);
-            ByteArrayOutputStream buffer = IOUtilities.inputStreamToByteArrayOutputStream(reqIS);
-            InputStream reqIS2 = new ByteArrayInputStream(buffer.toByteArray());
-            InputStream reqIS3 = new ByteArrayInputStream(buffer.toByteArray());
-
-            // The first copy is used to produce the GitHubResponse
-            GitHubResponse ghResponse = new GitHubResponse(httpRequest, getBody(request, reqIS2));
-
-            // The second is parsed again for event-specific information
-            return new GitHubEventsResponse(ghResponse, reqIS3, updatedEtag);
+            // The events are parsed directly from the connection's stream
+            try (InputStream reqIS = getStream(httpRequest)) {
+                return new GitHubEventsResponse(reqIS, updatedEtag);
+            }
         } else if (isNotModified(code)) { // 304 Not Modified
-            GitHubResponse ghResponse = new GitHubResponse(httpRequest, null);
-            return new GitHubEventsResponse(ghResponse, new NullInputStream(0), currentETag);
+            return new GitHubEventsResponse(currentETag);
         } else if (isEmpty(code)) {
-            GitHubResponse ghResponse = new GitHubResponse(httpRequest, null);
-            return new GitHubEventsResponse(ghResponse, new NullInputStream(0), "");
+            return new GitHubEventsResponse("");
         } else {
             throw createException(getStream(httpRequest), code, httpRequest.getResponseMessage());
         }
     }
 
+    /**
+     * Gets all pages of a paged request, unless its first page has not been modified since the
+     * given ETag, as getEvent does for events.
+     *
+     * The returned ETag is that of the first page. Later pages may change without the first page
+     * changing, so when there is more than one page, the returned ETag is empty, and the next request
+     * will not be conditional.
+     *
+     * @param request the request for the first page
+     * @param currentETag the ETag of the first page the last time it was retrieved, or empty
+     * @return the items of all pages and the updated ETag, or Optional.empty() if nothing was modified
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Optional<ImmutablePair<List<V>, String>> getAllIfModified(PagedRequest<V> request, String currentETag)
+        throws IOException {
+        HttpURLConnection httpRequest = createGet(request.generateUri());
+        if (!currentETag.isEmpty()) {
+            httpRequest.setRequestProperty("If-None-Match", "\"" + currentETag + "\"");
+        }
+        String accept = request.getResponseContentType();
+        if (accept != null) {
+            httpRequest.setRequestProperty(HEADER_ACCEPT, accept);
+        }
+        final int code = httpRequest.getResponseCode();
+        updateRateLimits(httpRequest);
+
+        if (isNotModified(code)) { // 304 Not Modified
+            return Optional.empty();
+        } else if (isEmpty(code)) {
+            return Optional.of(new ImmutablePair<>(new ArrayList<>(), ""));
+        } else if (!isOk(code)) {
+            throw createException(getStream(httpRequest), code, httpRequest.getResponseMessage());
+        }
+
+        GitHubResponse response = new GitHubResponse(httpRequest, getBody(request, getStream(httpRequest)));
+        List<V> items = new ArrayList<>((Collection<V>) response.getBody());
+        if (response.getNext() == null) {
+            String updatedETag = Utility.stripQuotes(Utility.replaceNull(httpRequest.getHeaderField("ETag"), ""));
+            return Optional.of(new ImmutablePair<>(items, updatedETag));
+        }
+
+        for (int page = request.getPage() + 1; response.getNext() != null; page++) {
+            PagedRequest<V> pageRequest = new PagedRequest<>(page, request.getPageSize());
+            pageRequest.setUri(request.getUri());
+            pageRequest.setParams(request.getParams());
+            pageRequest.setType(request.getType());
+            pageRequest.setResponseContentType(accept);
+            response = get(pageRequest);
+            items.addAll((Collection<V>) response.getBody());
+        }
+        return Optional.of(new ImmutablePair<>(items, ""));
+    }
+
+    /**
+     * Gets a single page of a paged request. If the page was retrieved by this client when it had
+     * the given ETag, the request is made conditional on that ETag, and when the page has not been
+     * modified since, its items are taken from the copy kept then instead of being parsed again.
+     *
+     * Pages which are not cached (e.g. in the first update after starting) are requested unconditionally,
+     * but are still reported as unmodified if their ETag turns out to be the given one.
+     *
+     * Pages are cached by ETag rather than by their full URI, as a page with the same ETag has the
+     * same items regardless of query parameters which may differ between updates (e.g. since).
+     *
+     * @param request the request for the page
+     * @param currentETag the ETag of the page the last time it was retrieved, or empty
+     * @return the page, which is modified if its ETag is not currentETag
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public <V> GitHubPageResponse<V> getPageIfModified(PagedRequest<V> request, String currentETag)
+        throws IOException {
+        GitHubPageResponse<V> cached = currentETag.isEmpty()
+            ? null
+            : (GitHubPageResponse<V>) pageCache.get(getPageCacheKey(request, currentETag));
+        // The last page may have been full, in which case items may have been added to a new page since
+        // without the cached page being modified
+        boolean isConditional = cached != null
+            && (cached.getNext() != null || cached.getItems().size() < request.getPageSize());
+
+        HttpURLConnection httpRequest = createGet(request.generateUri());
+        if (isConditional) {
+            httpRequest.setRequestProperty("If-None-Match", "\"" + currentETag + "\"");
+        }
+        String accept = request.getResponseContentType();
+        if (accept != null) {
+            httpRequest.setRequestProperty(HEADER_ACCEPT, accept);
+        }
+        final int code = httpRequest.getResponseCode();
+        updateRateLimits(httpRequest);
+        Date date = getResponseDate(httpRequest);
+
+        if (isConditional && isNotModified(code)) { // 304 Not Modified
+            String next = Utility.replaceNull(new GitHubResponse(httpRequest, null).getNext(), cached.getNext());
+            return new GitHubPageResponse<>(cached.getItems(), currentETag, next, false, date);
+        } else if (isEmpty(code)) {
+            return new GitHubPageResponse<>(new ArrayList<>(), "", null, !currentETag.isEmpty(), date);
+        } else if (!isOk(code)) {
+            throw createException(getStream(httpRequest), code, httpRequest.getResponseMessage());
+        }
+
+        GitHubResponse response = new GitHubResponse(httpRequest, getBody(request, getStream(httpRequest)));
+        String eTag = Utility.stripQuotes(Utility.replaceNull(httpRequest.getHeaderField("ETag"), ""));
+        GitHubPageResponse<V> page = new GitHubPageResponse<>(new ArrayList<>((Collection<V>) response.getBody()),
+            eTag, response.getNext(), eTag.isEmpty() || !eTag.equals(currentETag), date);
+        if (!eTag.isEmpty()) {
+            pageCache.put(getPageCacheKey(request, eTag), page);
+        }
+        return page;
+    }
+
+    private static String getPageCacheKey(GitHubRequest request, String eTag) {
+        String uri = request.getUri();
+        int query = uri.indexOf('?');
+        return (query == -1 ? uri : uri.substring(0, query)) + "#" + eTag;
+    }
+
+    private static Date getResponseDate(HttpURLConnection connection) {
+        String date = connection.getHeaderField("Date");
+        return date == null ? new Date() : Utility.parseHTTPLastModifiedDate(date);
+    }
+
     /**
      * Accesses the Rate Limit API endpoint to retrieve the number of remaining requests for the hour,
      * as well as the next reset time. Calling this function itself does not count towards the API limit.
@@ -145,8 +313,10 @@ public class GitHubClientEx extends GitHubClient {
         HttpURLConnection httpRequest = createGet("/rate_limit");
         if (isOk(httpRequest.getResponseCode())) {
             // We extract from rate, which is similar to resources.core
-            String json = String.valueOf(
-                    IOUtilities.inputStreamToByteArrayOutputStream(getStream(httpRequest)));
+            String json;
+            try (InputStream stream = getStream(httpRequest)) {
+                json = String.valueOf(IOUtilities.inputStreamToByteArrayOutputStream(stream));
+            }
             Map<String, Object> map =
                     new Gson().fromJson(json, new TypeToken<Map<String, Object>>() {
                     }.getType());
@@ -209,12 +379,26 @@ public class GitHubClientEx extends GitHubClient {
     }
 
     /**
-     * Overridden to make public.
+     * Overridden to make public, and to decompress compressed responses as they are read.
      */
     @Override
     @SuppressWarnings("PMD")
     public InputStream getStream(HttpURLConnection request) throws IOException {
-        return super.getStream(request);
+        InputStream stream = super.getStream(request);
+        if (stream == null || !ENCODING_GZIP.equalsIgnoreCase(request.getContentEncoding())) {
+            return stream;
+        }
+
+        // Only decompress bodies which actually are compressed, as some servers (including
+        // mock servers replaying recorded headers) send plain bodies under this header
+        BufferedInputStream buffered = new BufferedInputStream(stream);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        boolean isCompressed = first == (GZIPInputStream.GZIP_MAGIC & 0xff)
+            && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+        return isCompressed ? new GZIPInputStream(buffered) : buffered;
     }
 
     /**
@@ -1,120 +1,189 @@
 package github;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.eclipse.egit.github.core.IssueEvent;
 import org.eclipse.egit.github.core.User;
-import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.GsonUtils;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.Map;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.CHARSET_UTF8;
 
 /**
  * A wrapper class for GitHubEvents that also contain event-specific
  * information.
+ *
+ * Events are read in a single pass over the response body, keeping only the fields
+ * which TurboIssueEvent needs, rather than being parsed into egit's IssueEvent first.
  */
 public class GitHubEventsResponse {
 
-    private static final Logger logger = LogManager.getLogger(GitHubEventsResponse.class.getName());
+    // Configured like egit's own parser, so users and dates are read the same way
+    private static final Gson gson = GsonUtils.getGson();
+    private static final TypeAdapter<User> userAdapter = gson.getAdapter(User.class);
+    private static final TypeAdapter<Date> dateAdapter = gson.getAdapter(Date.class);
 
-    private final GitHubResponse response;
     private final List<TurboIssueEvent> turboIssueEvents;
     private final String updatedETag;
 
-    public GitHubEventsResponse(GitHubResponse response, InputStream jsonBody, String updatedETag) {
-        this.response = response;
-        this.turboIssueEvents = parseEventParameters(jsonBody);
+    /**
+     * Creates a response with no events, e.g. when they have not been modified.
+     */
+    public GitHubEventsResponse(String updatedETag) {
+        this.turboIssueEvents = new ArrayList<>();
         this.updatedETag = updatedETag;
     }
 
-    @SuppressWarnings("unchecked")
-    private List<TurboIssueEvent> parseEventParameters(InputStream jsonBody) {
-        ArrayList<TurboIssueEvent> eventsInJson = new ArrayList<>();
+    public GitHubEventsResponse(InputStream jsonBody, String updatedETag) throws IOException {
+        this.turboIssueEvents = parseEvents(jsonBody);
+        this.updatedETag = updatedETag;
+    }
 
-        Gson gson = new Gson();
-        Type type = new TypeToken<Map<String, Object>[]>(){}.getType();
-        BufferedReader reader;
+    private static List<TurboIssueEvent> parseEvents(InputStream jsonBody) throws IOException {
+        List<TurboIssueEvent> events = new ArrayList<>();
+        JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(jsonBody, CHARSET_UTF8)));
 
-        try {
-            reader = new BufferedReader(new InputStreamReader(jsonBody, CHARSET_UTF8));
+        if (reader.peek() == JsonToken.NULL) {
+            return events;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            events.add(parseEvent(reader));
+        }
+        reader.endArray();
+        return events;
+    }
 
-            Map<String, Object>[] eventsWithParameters = gson.fromJson(reader, type);
+    /**
+     * Reads a single event object. Its fields may come in any order, so the event-specific
+     * details are only applied once the whole object has been read.
+     */
+    private static TurboIssueEvent parseEvent(JsonReader reader) throws IOException {
+        User actor = null;
+        IssueEventType type = null;
+        Date createdAt = null;
+        String[] rename = null;
+        String[] label = null;
+        String milestoneTitle = null;
+        User assignee = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+            case "actor":
+                actor = userAdapter.read(reader);
+                break;
+            case "event":
+                type = IssueEventType.fromString(reader.nextString());
+                break;
+            case "created_at":
+                createdAt = dateAdapter.read(reader);
+                break;
+            case "rename":
+                // two string keys: from, to
+                rename = readStrings(reader, "from", "to");
+                break;
+            case "milestone":
+                // one string key: title
+                milestoneTitle = readStrings(reader, "title")[0];
+                break;
+            case "label":
+                // two string keys: name, color (hex, without #)
+                label = readStrings(reader, "name", "color");
+                break;
+            case "assignee":
+                assignee = userAdapter.read(reader);
+                break;
+            default:
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        TurboIssueEvent event = new TurboIssueEvent(actor, type, createdAt);
+        switch (event.getType()) {
+        case Renamed:
+            if (rename != null) {
+                event.setRenamedFrom(rename[0]);
+                event.setRenamedTo(rename[1]);
+            }
+            break;
+        case Milestoned:
+        case Demilestoned:
+            event.setMilestoneTitle(milestoneTitle);
+            break;
+        case Labeled:
+        case Unlabeled:
+            if (label != null) {
+                event.setLabelName(label[0]);
+                event.setLabelColour(label[1]);
+            }
+            break;
+        case Assigned:
+        case Unassigned:
+            event.setAssignedUser(assignee);
+            break;
+        case Closed:
+        case Reopened:
+        case Locked:
+        case Unlocked:
+            // No need to do anything
+            break;
+        case Subscribed:
+        case Unsubscribed:
+        case Merged:
+        case HeadRefDeleted:
+        case HeadRefRestored:
+        case Referenced:
+        case Mentioned:
+        default:
+            // Not yet implemented, or no events triggered
+        }
+        return event;
+    }
 
-            if (eventsWithParameters == null) {
-                return eventsInJson;
+    /**
+     * Reads the given string fields of an object, skipping all others.
+     *
+     * @return the values of the fields in the order given, null for those which are absent
+     */
+    private static String[] readStrings(JsonReader reader, String... keys) throws IOException {
+        String[] values = new String[keys.length];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            int index = indexOf(keys, name);
+            if (index >= 0 && reader.peek() == JsonToken.STRING) {
+                values[index] = reader.nextString();
+            } else {
+                reader.skipValue();
             }
+        }
+        reader.endObject();
+        return values;
+    }
 
-            IssueEvent[] issueEvents = (IssueEvent[]) response.getBody();
-
-            Map<String, String> parameters;
-            for (int i = 0; i < issueEvents.length; i++) {
-                TurboIssueEvent event = new TurboIssueEvent(
-                        issueEvents[i].getActor(),
-                        IssueEventType.fromString(issueEvents[i].getEvent()),
-                        issueEvents[i].getCreatedAt());
-
-                switch (event.getType()) {
-                case Renamed:
-                    // two string keys: from, to
-                    parameters = (Map<String, String>) eventsWithParameters[i].get("rename");
-                    event.setRenamedFrom(parameters.get("from"));
-                    event.setRenamedTo(parameters.get("to"));
-                    break;
-                case Milestoned:
-                case Demilestoned:
-                    // one string key: title
-                    parameters = (Map<String, String>) eventsWithParameters[i].get("milestone");
-                    event.setMilestoneTitle(parameters.get("title"));
-                    break;
-                case Labeled:
-                case Unlabeled:
-                    // two string keys: name, color (hex, without #)
-                    parameters = (Map<String, String>) eventsWithParameters[i].get("label");
-                    event.setLabelColour(parameters.get("color"));
-                    event.setLabelName(parameters.get("name"));
-                    break;
-                case Assigned:
-                case Unassigned:
-                    // User object
-                    // re-serialise it using Gson
-                    Object assigneeMap = eventsWithParameters[i].get("assignee");
-                    String json = new Gson().toJson(assigneeMap);
-                    User user = gson.fromJson(json, User.class);
-                    event.setAssignedUser(user);
-                    break;
-                case Closed:
-                case Reopened:
-                case Locked:
-                case Unlocked:
-                    // No need to do anything
-                    break;
-                case Subscribed:
-                case Unsubscribed:
-                case Merged:
-                case HeadRefDeleted:
-                case HeadRefRestored:
-                case Referenced:
-                case Mentioned:
-                default:
-                    // Not yet implemented, or no events triggered
-                }
-                eventsInJson.add(event);
+    private static int indexOf(String[] keys, String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
             }
-        } catch (UnsupportedEncodingException e) {
-            logger.error(e.getLocalizedMessage(), e);
         }
-        return eventsInJson;
+        return -1;
     }
 
     public List<TurboIssueEvent> getTurboIssueEvents() {
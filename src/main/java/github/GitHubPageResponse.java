@@ -0,0 +1,54 @@
+package github;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A single page of a paged request, as retrieved by GitHubClientEx::getPageIfModified.
+ *
+ * @param <V> the type of the items in the page
+ */
+public class GitHubPageResponse<V> {
+
+    private final List<V> items;
+    private final String eTag;
+    private final String next;
+    private final boolean isModified;
+    private final Date date;
+
+    /**
+     * @param items the items in the page
+     * @param eTag the ETag of the page, or empty if the server did not provide one
+     * @param next the URI of the next page, or null if this is the last page
+     * @param isModified false if the page is the same as it was when it had the ETag sent with the request
+     * @param date the time at which the page was sent from the server
+     */
+    public GitHubPageResponse(List<V> items, String eTag, String next, boolean isModified, Date date) {
+        this.items = new ArrayList<>(items);
+        this.eTag = eTag;
+        this.next = next;
+        this.isModified = isModified;
+        this.date = new Date(date.getTime());
+    }
+
+    public List<V> getItems() {
+        return new ArrayList<>(items);
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public boolean isModified() {
+        return isModified;
+    }
+
+    public Date getDate() {
+        return new Date(date.getTime());
+    }
+}
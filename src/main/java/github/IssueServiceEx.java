@@ -5,11 +5,17 @@ import static org.eclipse.egit.github.core.client.IGitHubConstants.*;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
 import org.eclipse.egit.github.core.IRepositoryIdProvider;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.IssueEvent;
 import org.eclipse.egit.github.core.client.GitHubRequest;
+import org.eclipse.egit.github.core.client.PagedRequest;
 import org.eclipse.egit.github.core.service.IssueService;
 
 public class IssueServiceEx extends IssueService {
@@ -75,4 +81,27 @@ public class IssueServiceEx extends IssueService {
         request.setType(IssueEvent[].class);
         return ghClient.getEvent(request, eTag);
     }
+
+    /**
+     * Retrieves the comments of an issue together with their new ETag if they have been modified.
+     *
+     * @param repository The repository from which to retrieve the issue
+     * @param issueId The numeric ID of the issue
+     * @param eTag The eTag to be added to the request header
+     * @return the comments and their ETag, or Optional.empty() if they have not been modified
+     * @throws IOException
+     */
+    public Optional<ImmutablePair<List<Comment>, String>> getCommentsIfModified(IRepositoryIdProvider repository,
+                                                                                int issueId, String eTag)
+        throws IOException {
+        PagedRequest<Comment> request = createPagedRequest();
+        StringBuilder uri = new StringBuilder(SEGMENT_REPOS);
+        uri.append('/').append(repository.generateId())
+            .append(SEGMENT_ISSUES).append('/').append(issueId)
+            .append(SEGMENT_COMMENTS);
+        request.setUri(uri);
+        request.setType(new TypeToken<List<Comment>>() {
+        }.getType());
+        return ghClient.getAllIfModified(request, eTag);
+    }
 }
@@ -1,6 +1,7 @@
 package github;
 
 import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.IRepositoryIdProvider;
 import org.eclipse.egit.github.core.client.GitHubClient;
@@ -10,6 +11,7 @@ import util.HTLog;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.*;
 
@@ -57,6 +59,30 @@ public class PullRequestServiceEx extends PullRequestService {
      */
     private List<ReviewComment> getReviewComments(String repoId, String pullRequestNumber)
             throws IOException {
+        return getAll(createReviewCommentsRequest(repoId, pullRequestNumber));
+    }
+
+    /**
+     * Gets a pull request's review comments together with their new ETag if they have been modified.
+     * The request is only conditional when made through a GitHubClientEx.
+     *
+     * @param repository
+     * @param pullRequestNumber
+     * @param eTag
+     * @return the review comments and their ETag, or Optional.empty() if they have not been modified
+     * @throws IOException
+     */
+    public Optional<ImmutablePair<List<ReviewComment>, String>> getReviewCommentsIfModified(
+            IRepositoryIdProvider repository, int pullRequestNumber, String eTag) throws IOException {
+        PagedRequest<ReviewComment> request =
+                createReviewCommentsRequest(getId(repository), Integer.toString(pullRequestNumber));
+        if (client instanceof GitHubClientEx) {
+            return ((GitHubClientEx) client).getAllIfModified(request, eTag);
+        }
+        return Optional.of(new ImmutablePair<>(getAll(request), ""));
+    }
+
+    private PagedRequest<ReviewComment> createReviewCommentsRequest(String repoId, String pullRequestNumber) {
         if (pullRequestNumber == null) {
             throw new IllegalArgumentException("Pull request number cannot be null");
         }
@@ -76,7 +102,6 @@ public class PullRequestServiceEx extends PullRequestService {
         request.setUri(uri);
         request.setType(new TypeToken<List<ReviewComment>>() {
         }.getType());
-
-        return getAll(request);
+        return request;
     }
 }
@@ -1,6 +1,7 @@
 package github;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -20,6 +21,7 @@ import util.Utility;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
+import backend.resource.serialization.SerializableIssueEvent;
 
 /**
  * Models an event that could happen to an issue.
@@ -51,6 +53,14 @@ public class TurboIssueEvent {
         this.date = new Date(date.getTime());
     }
 
+    public TurboIssueEvent(SerializableIssueEvent event) {
+        this(new User().setLogin(Utility.replaceNull(event.getActor(), "")), event.getType(),
+            new Date(event.getDate()));
+        if (event.getDetails() != null) {
+            setDetails(event.getDetails());
+        }
+    }
+
     public IssueEventType getType() {
         return type;
     }
@@ -117,6 +127,61 @@ public class TurboIssueEvent {
         this.assignedUser = assignedUser;
     }
 
+    /**
+     * Gets the properties specific to the type of this event, in a fixed order, so that they can be stored.
+     * The assigned user is reduced to a login.
+     */
+    public List<String> getDetails() {
+        switch (type) {
+        case Labeled:
+        case Unlabeled:
+            return Arrays.asList(labelName, labelColour);
+        case Milestoned:
+        case Demilestoned:
+            return Arrays.asList(milestoneTitle);
+        case Renamed:
+            return Arrays.asList(renamedFrom, renamedTo);
+        case Assigned:
+        case Unassigned:
+            return Arrays.asList(assignedUser == null ? null : assignedUser.getLogin());
+        default:
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * The inverse of getDetails. Missing properties are left null.
+     */
+    public TurboIssueEvent setDetails(List<String> details) {
+        switch (type) {
+        case Labeled:
+        case Unlabeled:
+            labelName = getDetail(details, 0);
+            labelColour = getDetail(details, 1);
+            break;
+        case Milestoned:
+        case Demilestoned:
+            milestoneTitle = getDetail(details, 0);
+            break;
+        case Renamed:
+            renamedFrom = getDetail(details, 0);
+            renamedTo = getDetail(details, 1);
+            break;
+        case Assigned:
+        case Unassigned:
+            String login = getDetail(details, 0);
+            assignedUser = login == null ? null : new User().setLogin(login);
+            break;
+        default:
+            break;
+        }
+        return this;
+    }
+
+    private static String getDetail(List<String> details, int index) {
+        return index < details.size() ? details.get(index) : null;
+    }
+
     public static Label octicon(String which) {
         Label label = new Label(which);
         HBox.setMargin(label, new Insets(0, 2, 0, 0));
@@ -0,0 +1,104 @@
+package github.update;
+
+import com.google.gson.reflect.TypeToken;
+import github.GitHubClientEx;
+import github.GitHubPageResponse;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.event.Event;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.eclipse.egit.github.core.client.IGitHubConstants.CONTENT_TYPE_JSON;
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_EVENTS;
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
+
+/**
+ * Polls the events feeds of repositories, to tell what kinds of changes have been made to them since
+ * they were last polled. Polls are conditional on the ETag of the feed, so polling a repository in
+ * which nothing has happened costs a single 304 response.
+ *
+ * Only the first page of the feed is polled. If the latest event seen in the last poll is no longer on
+ * it, or the repository has not been polled before, the changes cannot all be told.
+ */
+public class RepoEventsService {
+    private static final Logger logger = LogManager.getLogger(RepoEventsService.class.getName());
+
+    private final GitHubClientEx client;
+
+    // The ETag of the feed of each repository and the id of the latest event in it, as of the last poll
+    private final Map<String, ImmutablePair<String, String>> lastPolls = new ConcurrentHashMap<>();
+
+    public RepoEventsService(GitHubClientEx client) {
+        assert client != null;
+        this.client = client;
+    }
+
+    /**
+     * @param repoId the repository whose feed to poll
+     * @return the types of the events since the last poll (e.g. IssuesEvent), which are none if nothing
+     * has happened, or Optional.empty() if they cannot all be told
+     */
+    public Optional<Set<String>> getNewEventTypes(String repoId) {
+        String key = repoId.toLowerCase();
+        Optional<ImmutablePair<String, String>> lastPoll = Optional.ofNullable(lastPolls.get(key));
+
+        List<Event> events;
+        try {
+            GitHubPageResponse<Event> response = client.getPageIfModified(createRequest(repoId),
+                lastPoll.map(poll -> poll.left).orElse(""));
+            if (!response.isModified() && lastPoll.isPresent()) {
+                logger.info(String.format("%s | no new events", repoId));
+                return Optional.of(new HashSet<>());
+            }
+            events = response.getItems();
+            String latestEventId = events.isEmpty() ? "" : events.get(0).getId();
+            lastPolls.put(key, new ImmutablePair<>(response.getETag(), latestEventId));
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return Optional.empty();
+        }
+
+        if (!lastPoll.isPresent()) {
+            return Optional.empty();
+        }
+        Set<String> types = new HashSet<>();
+        for (Event event : events) {
+            if (event.getId().equals(lastPoll.get().right)) {
+                logger.info(String.format("%s | new events: %s", repoId, types));
+                return Optional.of(types);
+            }
+            types.add(event.getType());
+        }
+        // The latest event seen before has dropped off the first page, so some events may have been missed
+        logger.info(String.format("%s | too many new events to tell what changed", repoId));
+        return Optional.empty();
+    }
+
+    /**
+     * Forgets the last poll of a repository's feed, so that the next poll cannot tell what has changed.
+     * Meant for when the changes reported by the last poll could not be fetched, as they would otherwise
+     * not be reported again.
+     */
+    public void forgetLastPoll(String repoId) {
+        lastPolls.remove(repoId.toLowerCase());
+    }
+
+    private static PagedRequest<Event> createRequest(String repoId) {
+        PagedRequest<Event> request = new PagedRequest<>();
+        request.setUri(SEGMENT_REPOS + "/" + repoId + SEGMENT_EVENTS);
+        request.setResponseContentType(CONTENT_TYPE_JSON);
+        request.setType(new TypeToken<Event>(){}.getType());
+        request.setArrayType(new TypeToken<ArrayList<Event>>(){}.getType());
+        return request;
+    }
+}
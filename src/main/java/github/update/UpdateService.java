@@ -1,11 +1,10 @@
 package github.update;
 
 import github.GitHubClientEx;
-import org.apache.commons.lang3.tuple.ImmutablePair;
+import github.GitHubPageResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.IRepositoryIdProvider;
-import org.eclipse.egit.github.core.client.GitHubRequest;
 import org.eclipse.egit.github.core.client.NoSuchPageException;
 import org.eclipse.egit.github.core.client.PageIterator;
 import org.eclipse.egit.github.core.client.PagedRequest;
@@ -13,8 +12,10 @@ import org.eclipse.egit.github.core.service.GitHubService;
 import util.Utility;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -75,7 +76,10 @@ public class UpdateService<T> extends GitHubService {
     }
 
     /**
-     * Retrieves the requested items from GitHub
+     * Retrieves the requested items from GitHub.
+     * Each page is requested conditionally on its last-known ETag, so pages which have not changed
+     * are neither downloaded nor parsed again. If any page has changed, all items are returned;
+     * otherwise the result is empty.
      * @param repoId the repository to get the items from
      * @return a list of requested items
      */
@@ -90,19 +94,41 @@ public class UpdateService<T> extends GitHubService {
 
         logger.info(String.format("Updating %s with ETag %s", resourceDesc, lastETags));
         try {
-            PagedRequest<T> headerRequest = createUpdatedRequest(repoId);
-            Optional<ImmutablePair<List<String>, HttpURLConnection>> etags = getPagedEtags(headerRequest, client);
+            List<String> lastPageETags = splitETags(lastETags);
+            List<String> pageETags = new ArrayList<>();
+            List<T> items = new ArrayList<>();
+            Optional<Date> checkTime = Optional.empty();
 
-            if (!etags.isPresent()) {
-                /* Respond as if we succeeded and there were no updates.
-                   The assumption is that updates are cheap and we can do them as frequently as needed. */
-                logger.warn(String.format("%s: error getting updated items", getClass().getSimpleName()));
+            PagedRequest<T> request = createUpdatedRequest(repoId);
+            for (int page = 0; ; page++) {
+                String lastPageETag = page < lastPageETags.size() ? lastPageETags.get(page) : "";
+                GitHubPageResponse<T> response = client.getPageIfModified(request, lastPageETag);
+
+                pageETags.add(response.getETag());
+                items.addAll(response.getItems());
+                if (!checkTime.isPresent()) {
+                    checkTime = Optional.of(response.getDate());
+                }
+                logger.info(String.format("%s | page %d: %d items%s", resourceDesc, page,
+                    response.getItems().size(), response.isModified() ? "" : " (not modified)"));
+
+                if (response.getNext() == null) {
+                    break;
+                }
+                request = createNextPageRequest(request, response.getNext());
+            }
+
+            updatedETags = combineETags(pageETags);
+            checkTime.ifPresent(time -> updatedCheckTime = time);
+            if (updatedETags.get().equals(lastETags)) {
+                logger.info("Nothing to update");
             } else {
-                updatedETags = combineETags(etags.get().getLeft());
-                result = downloadUpdatedItems(repoId, resourceDesc, updatedETags);
-                updateCheckTime(etags.get().getRight());
+                result = new ArrayList<>(items);
+                logger.info(String.format("New ETag for %s: %s", resourceDesc, updatedETags.get()));
             }
         } catch (IOException e) {
+            /* Respond as if we succeeded and there were no updates.
+               The assumption is that updates are cheap and we can do them as frequently as needed. */
             logger.error(e.getLocalizedMessage(), e);
             return result;
         }
@@ -111,20 +137,22 @@ public class UpdateService<T> extends GitHubService {
         return result;
     }
 
-    private ArrayList<T> downloadUpdatedItems(IRepositoryIdProvider repoId,
-                                              String resourceDesc,
-                                              Optional<String> updatedETags) throws IOException {
-        ArrayList<T> result = new ArrayList<>();
-
-        if (!updatedETags.isPresent() || updatedETags.get().equals(lastETags)){
-            logger.info("Nothing to update");
-        } else {
-            PagedRequest<T> request = createUpdatedRequest(repoId);
-            result = new ArrayList<>(getPagedItems(resourceDesc, new PageIterator<>(request, client)));
-            logger.info(String.format("New ETag for %s: %s", resourceDesc, updatedETags));
+    /**
+     * Creates the request for the page at the given URI, which follows the page of the given request.
+     * @see org.eclipse.egit.github.core.client.PageIterator
+     */
+    private PagedRequest<T> createNextPageRequest(PagedRequest<T> request, String next) {
+        PagedRequest<T> nextRequest = new PagedRequest<>(request.getPage() + 1, request.getPageSize());
+        try {
+            nextRequest.setUri(new URL(next).getFile());
+        } catch (MalformedURLException e) {
+            nextRequest.setUri(next);
         }
-
-        return result;
+        nextRequest.setParams(request.getParams());
+        nextRequest.setType(request.getType());
+        nextRequest.setArrayType(request.getArrayType());
+        nextRequest.setResponseContentType(request.getResponseContentType());
+        return nextRequest;
     }
 
     /**
@@ -137,34 +165,15 @@ public class UpdateService<T> extends GitHubService {
     }
 
     /**
-     * Gets a list of ETags for all pages returned from an API request and
-     * also return the connection used to get the ETags so that their last check time
-     * can be recorded elsewhere
-     * @param request
-     * @param client
-     * @return a Optional list of ETags for all pages returned from an API request and
-     *         corresponding HTTP connection or an empty Optional if an error occurs
+     * Splits ETags combined by combineETags into the ETags of each page
+     * @param etags may be null
+     * @return list of the ETags of each page, in order
      */
-    private Optional<ImmutablePair<List<String>, HttpURLConnection>> getPagedEtags(
-            GitHubRequest request, GitHubClientEx client) {
-
-        PageHeaderIterator iter = new PageHeaderIterator(request, client, "ETag");
-        List<String> etags = new ArrayList<>();
-        HttpURLConnection connection = null;
-
-        while (iter.hasNext()) {
-            try {
-                etags.add(Utility.stripQuotes(iter.next()));
-                if (connection == null) {
-                    connection = iter.getLastConnection();
-                }
-            } catch (NoSuchPageException e) {
-                logger.error("No such page exception at " + iter.getRequest().generateUri());
-                return Optional.empty();
-            }
+    private static List<String> splitETags(String etags) {
+        if (etags == null || etags.isEmpty()) {
+            return new ArrayList<>();
         }
-
-        return Optional.of(new ImmutablePair<>(etags, connection));
+        return Arrays.asList(etags.split("#", -1));
     }
 
     /**
@@ -211,9 +220,4 @@ public class UpdateService<T> extends GitHubService {
     public Date getUpdatedCheckTime() {
         return new Date(updatedCheckTime.getTime());
     }
-
-    private void updateCheckTime(HttpURLConnection connection) {
-        String date = connection.getHeaderField("Date");
-        updatedCheckTime = Utility.parseHTTPLastModifiedDate(date);
-    }
 }
@@ -1,5 +1,6 @@
 package prefs;
 
+import backend.interfaces.RepoSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -33,6 +34,15 @@ public class GlobalConfig {
     private final Map<String, List<PanelInfo>> savedBoards = new LinkedHashMap<>();
     private final Map<String, Map<Integer, LocalDateTime>> markedReadTimes = new HashMap<>();
     private Map<String, String> keyboardShortcuts = new HashMap<>();
+    private int metadataDownloadConcurrency = RepoSource.DEFAULT_METADATA_DOWNLOAD_CONCURRENCY;
+
+    public int getMetadataDownloadConcurrency() {
+        return metadataDownloadConcurrency;
+    }
+
+    public void setMetadataDownloadConcurrency(int metadataDownloadConcurrency) {
+        this.metadataDownloadConcurrency = metadataDownloadConcurrency;
+    }
 
     public Map<String, String> getKeyboardShortcuts() {
         return new HashMap<>(keyboardShortcuts);
@@ -187,4 +187,15 @@ public class Preferences { // NOPMD
     public void setKeyboardShortcuts(Map<String, String> keyboardShortcuts) {
         global.setKeyboardShortcuts(keyboardShortcuts);
     }
+
+    /**
+     * The number of issues whose metadata is downloaded at once
+     */
+    public int getMetadataDownloadConcurrency() {
+        return global.getMetadataDownloadConcurrency();
+    }
+
+    public void setMetadataDownloadConcurrency(int concurrency) {
+        global.setMetadataDownloadConcurrency(concurrency);
+    }
 }
@@ -1,8 +1,8 @@
 package ui;
 
 import backend.RepoIO;
+import backend.binary.BinaryStore;
 import backend.interfaces.RepoStore;
-import backend.json.JSONStore;
 import backend.json.JSONStoreStub;
 import backend.stub.DummySource;
 import javafx.application.Application;
@@ -75,6 +75,12 @@ public final class TestController {
         return hasUI() && commandLineArgs.getOrDefault("testjson", "false").equalsIgnoreCase("true");
     }
 
+    // When --binarystore=true is passed as an argument, repositories are stored in the binary format
+    // instead of as JSON, and any stored as JSON are migrated.
+    public static boolean isBinaryStoreEnabled() {
+        return hasUI() && commandLineArgs.getOrDefault("binarystore", "false").equalsIgnoreCase("true");
+    }
+
     public static boolean isTestChromeDriver() {
         return hasUI() && commandLineArgs.getOrDefault("testchromedriver", "false").equalsIgnoreCase("true");
     }
@@ -125,18 +131,20 @@ public final class TestController {
         if (isTestMode()) {
             return createTestingRepoIO(isTestJSONEnabled() ? Optional.of(new JSONStoreStub()) : Optional.empty());
         } else {
-            return new RepoIO(Optional.empty(), Optional.empty(), Optional.empty());
+            return new RepoIO(Optional.empty(),
+                              isBinaryStoreEnabled() ? Optional.of(new BinaryStore()) : Optional.empty(),
+                              Optional.empty());
         }
     }
 
     /**
      * Creates a partially stubbed RepoIO used for testing
-     * @param jsonStoreToBeUsed store to be used with RepoIO,
-     *                          defaults to a new instance of JSONStore if this value is empty
+     * @param storeToBeUsed store to be used with RepoIO,
+     *                      defaults to a new instance of JSONStore if this value is empty
      * @return
      */
-    public static RepoIO createTestingRepoIO(Optional<JSONStore> jsonStoreToBeUsed) {
-        return new RepoIO(Optional.of(new DummySource()), jsonStoreToBeUsed,
+    public static RepoIO createTestingRepoIO(Optional<RepoStore> storeToBeUsed) {
+        return new RepoIO(Optional.of(new DummySource()), storeToBeUsed,
                           Optional.of(RepoStore.TEST_DIRECTORY));
     }
 }
@@ -68,7 +68,12 @@ public class UI extends Application implements EventDispatcher {
     private static HWND mainWindowHandle;
     private final GlobalHotkey globalHotkey = new GlobalHotkey(this);
 
-    private static final int REFRESH_PERIOD = 60;
+    // Repositories are refreshed when RefreshScheduler finds them due, which is checked this often
+    private static final int REFRESH_CHECK_PERIOD = 1;
+
+    // HttpURLConnection keeps only 5 idle connections alive per host by default, fewer than the
+    // number of requests which may be made to GitHub at once (see RepoSource)
+    private static final int MAX_KEPT_ALIVE_CONNECTIONS = 16;
 
     // Application-level state
 
@@ -96,6 +101,10 @@ public class UI extends Application implements EventDispatcher {
 
     @SuppressWarnings("PMD")
     public static void main(String[] args) {
+        // Read once, when the first connection is kept alive, so this is set before any is opened
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(MAX_KEPT_ALIVE_CONNECTIONS));
+        }
         Application.launch(args);
     }
 
@@ -211,8 +220,8 @@ public class UI extends Application implements EventDispatcher {
         // we can pass them in the form of an array.
         logic = new Logic(uiManager, prefs);
         // TODO clear cache if necessary
-        refreshTimer = new TickingTimer("Refresh Timer", REFRESH_PERIOD,
-            status::updateTimeToRefresh, () -> logic.refresh(isNotificationPaneShowing()), TimeUnit.SECONDS);
+        refreshTimer = new TickingTimer("Refresh Timer", REFRESH_CHECK_PERIOD,
+            time -> {}, () -> logic.refreshDueRepositories(isNotificationPaneShowing()), TimeUnit.SECONDS);
         refreshTimer.start();
     }
 
@@ -313,7 +322,6 @@ public class UI extends Application implements EventDispatcher {
                     if (shouldRefresh) {
                         logger.info("Browser view has changed; refreshing");
                         logic.refresh(isNotificationPaneShowing());
-                        refreshTimer.restart();
                     }
                 }
             });
@@ -380,6 +388,7 @@ public class UI extends Application implements EventDispatcher {
     }
 
     public void removeUnusedModelsAndUpdate() {
+        logic.updateReposOnPanels(panels.getRepositoriesReferencedOnAllPanels());
         logic.removeUnusedModels(Utility.convertSetToLowerCase(getCurrentlyUsedRepos()));
 
         triggerEvent(new UnusedStoredReposChangedEvent());
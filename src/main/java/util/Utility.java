@@ -5,6 +5,7 @@ import java.awt.GraphicsEnvironment;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -47,6 +48,20 @@ public final class Utility {
             && repoId.equals(repositoryId.generateId());
     }
 
+    /**
+     * Writes the content of a file in one go to a Writer, or reads it from a Reader,
+     * so that large files need not be held in memory as a String.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(Writer writer) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ContentReader<T> {
+        T read(Reader reader) throws IOException;
+    }
+
     public static Optional<String> readFile(String fileName) {
         boolean validPath = !(fileName == null || fileName.isEmpty());
         if (validPath) {
@@ -59,6 +74,25 @@ public final class Utility {
         return Optional.empty();
     }
 
+    /**
+     * Streams the content of a file to the given reader, without loading all of it first.
+     * Runtime exceptions thrown by the reader are propagated.
+     * @param fileName
+     * @param contentReader
+     * @return the result of the reader, or nothing if the file could not be read or the result was null
+     */
+    public static <T> Optional<T> readFile(String fileName, ContentReader<T> contentReader) {
+        boolean validPath = !(fileName == null || fileName.isEmpty());
+        if (validPath) {
+            try (Reader reader = Files.newBufferedReader(new File(fileName).toPath(), StandardCharsets.UTF_8)) {
+                return Optional.ofNullable(contentReader.read(reader));
+            } catch (IOException e) {
+                logger.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return Optional.empty();
+    }
+
     /**
      * Returns true on JSON corruption.
      * TODO remove JSON-specific parts
@@ -68,15 +102,26 @@ public final class Utility {
      * @return
      */
     public static boolean writeFile(String fileName, String content, int issueCount) {
+        return writeFile(fileName, writer -> writer.write(content), issueCount);
+    }
+
+    /**
+     * Like writeFile, but streams content to the file as it is produced.
+     * @param fileName
+     * @param contentWriter
+     * @param issueCount
+     * @return true on JSON corruption
+     */
+    public static boolean writeFile(String fileName, ContentWriter contentWriter, int issueCount) {
         boolean validPath = !(fileName == null || fileName.isEmpty());
         if (validPath) {
             try {
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
                         new FileOutputStream(fileName), "UTF-8"
-                ));
-                writer.write(content);
-                writer.newLine();
-                writer.close();
+                ))) {
+                    contentWriter.write(writer);
+                    writer.newLine();
+                }
 
                 long sizeAfterWrite = Files.size(Paths.get(fileName));
                 return processFileGrowth(sizeAfterWrite, issueCount, fileName);
@@ -45,6 +45,9 @@ public class UITest extends GuiTest {
     private static final Logger logger = LogManager.getLogger(UITest.class.getName());
     protected static final SettableFuture<Stage> STAGE_FUTURE = SettableFuture.create();
     private static final Map<Character, KeyCode> specialCharsMap = getSpecialCharsMap();
+    // Files written by JSONStore and BinaryStore, including checkpoints and body segments
+    private static final Set<String> STORE_FILE_EXTENSIONS =
+            new HashSet<>(Arrays.asList("json", "json-err", "bin", "bodies", "checkpoint"));
 
     private final Robot robot;
     private final FXScreenController screenController;
@@ -101,10 +104,8 @@ public class UITest extends GuiTest {
             if (Files.exists(Paths.get(RepoStore.TEST_DIRECTORY))) {
                 Files.walk(Paths.get(RepoStore.TEST_DIRECTORY), 1)
                         .filter(Files::isRegularFile)
-                        .filter(p ->
-                                getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json") ||
-                                getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json-err")
-                        )
+                        .filter(p -> STORE_FILE_EXTENSIONS.contains(
+                                getFileExtension(String.valueOf(p.getFileName())).toLowerCase()))
                         .forEach(p -> new File(p.toAbsolutePath().toString()).delete());
             }
         } catch (IOException e) {
@@ -0,0 +1,213 @@
+package tests;
+
+import backend.IssueMetadata;
+import backend.RepoIO;
+import backend.UpdateSignature;
+import backend.binary.BinaryStore;
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableModel;
+import backend.stub.DummyRepo;
+import github.IssueEventType;
+import github.ReviewComment;
+import github.TurboIssueEvent;
+import guitests.UITest;
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ui.TestController;
+import ui.UI;
+import ui.components.StatusUIStub;
+import util.events.EventDispatcherStub;
+import util.events.testevents.UpdateDummyRepoEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class BinaryStoreTests {
+
+    private static final String REPO = "dummy1/dummy1";
+
+    @BeforeClass
+    public static void setup() {
+        UI.events = new EventDispatcherStub();
+        UI.status = new StatusUIStub();
+    }
+
+    @Before
+    public void enableTestDirectory() {
+        RepoStore.changeDirectory(RepoStore.TEST_DIRECTORY);
+    }
+
+    private static Model createModel() {
+        DummyRepo dummy = new DummyRepo();
+        List<TurboIssue> issues = dummy.getIssues(REPO);
+
+        // Exercise the optional and unusual parts of the format
+        issues.get(0).setAssignee("User 1");
+        issues.get(0).setMilestone(1);
+        issues.get(1).setUpdatedAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123456789));
+
+        return new Model(REPO, issues,
+                dummy.getLabels(REPO),
+                dummy.getMilestones(REPO),
+                dummy.getCollaborators(REPO),
+                new UpdateSignature("issues", "labels", null, "collaborators", new Date()));
+    }
+
+    @Test
+    public void testRoundTrip() throws ExecutionException, InterruptedException {
+        Model model = createModel();
+
+        BinaryStore binaryStore = new BinaryStore();
+        assertFalse(binaryStore.saveRepository(REPO, new SerializableModel(model)).get());
+        assertTrue(Files.exists(Paths.get("store/test/dummy1-dummy1.bin")));
+
+        assertEquals(model, binaryStore.loadRepository(REPO).get());
+        assertEquals(1, binaryStore.getStoredRepos().size());
+        assertEquals(REPO, binaryStore.getStoredRepos().get(0));
+    }
+
+    @Test
+    public void testDescriptionSegments() throws ExecutionException, InterruptedException, IOException {
+        Model model = createModel();
+        model.getIssues().get(0).setDescription("\u00dcn\u00efc\u00f6d\u00e9 description");
+        model.getIssues().get(1).setDescription("");
+
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.saveRepository(REPO, new SerializableModel(model)).get();
+        binaryStore.saveRepository(REPO, new SerializableModel(model)).get();
+
+        // Only the segment of the latest write remains
+        assertEquals(1, countSegments());
+
+        Model loaded = binaryStore.loadRepository(REPO).get();
+        assertEquals("\u00dcn\u00efc\u00f6d\u00e9 description", loaded.getIssues().get(0).getDescription());
+        assertEquals("", loaded.getIssues().get(1).getDescription());
+        assertEquals(model.getIssues().get(2).getDescription(), loaded.getIssues().get(2).getDescription());
+
+        // Descriptions survive copying, and can be replaced
+        TurboIssue copy = new TurboIssue(loaded.getIssues().get(0));
+        assertEquals(loaded.getIssues().get(0), copy);
+        copy.setDescription("Edited");
+        assertEquals("Edited", copy.getDescription());
+        assertEquals("\u00dcn\u00efc\u00f6d\u00e9 description", loaded.getIssues().get(0).getDescription());
+
+        binaryStore.removeStoredRepo(REPO).get();
+        assertEquals(0, countSegments());
+    }
+
+    private static long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get("store/test"))) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".bodies")).count();
+        }
+    }
+
+    @Test
+    public void testMetadata() throws ExecutionException, InterruptedException {
+        Model model = createModel();
+
+        List<TurboIssueEvent> events = new ArrayList<>();
+        events.add(new TurboIssueEvent(new User().setLogin("User 1"), IssueEventType.Labeled, new Date(1000))
+                .setLabelName("bug"));
+        events.add(new TurboIssueEvent(new User().setLogin("User 2"), IssueEventType.Closed, new Date(2000)));
+        List<Comment> comments = new ArrayList<>();
+        comments.add(new Comment().setId(1).setUser(new User().setLogin("User 2"))
+                .setCreatedAt(new Date(3000)).setUpdatedAt(new Date(4000)));
+        comments.add(new ReviewComment().setId(2).setUser(new User().setLogin("User 1"))
+                .setCreatedAt(new Date(5000)).setUpdatedAt(new Date(5000)));
+        model.getIssues().get(0).setMetadata(
+                IssueMetadata.intermediate(events, comments, "events", "comments").full("User 1"));
+
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.saveRepository(REPO, new SerializableModel(model)).get();
+        Model loaded = binaryStore.loadRepository(REPO).get();
+
+        IssueMetadata metadata = loaded.getIssues().get(0).getMetadata();
+        assertEquals("events", metadata.getEventsETag());
+        assertEquals("comments", metadata.getCommentsETag());
+        assertEquals(2, metadata.getEvents().size());
+        assertEquals(IssueEventType.Labeled, metadata.getEvents().get(0).getType());
+        assertEquals("bug", metadata.getEvents().get(0).getLabelName());
+        assertEquals("User 2", metadata.getEvents().get(1).getActor().getLogin());
+        assertEquals(2, metadata.getComments().size());
+        assertEquals(new Date(4000), metadata.getComments().get(0).getUpdatedAt());
+        assertTrue(metadata.getComments().get(1) instanceof ReviewComment);
+        assertEquals(model.getIssues().get(0).getMetadata().getNonSelfUpdatedAt(), metadata.getNonSelfUpdatedAt());
+        assertFalse(metadata.isLatest());
+
+        // Issues without metadata are read back with none
+        assertTrue(loaded.getIssues().get(1).getMetadata().isEmpty());
+    }
+
+    @Test
+    public void testSmallerThanJSON() throws ExecutionException, InterruptedException, IOException {
+        Model model = createModel();
+        new JSONStore().saveRepository(REPO, new SerializableModel(model)).get();
+        new BinaryStore().saveRepository(REPO, new SerializableModel(model)).get();
+
+        assertTrue(Files.size(Paths.get("store/test/dummy1-dummy1.bin"))
+                < Files.size(Paths.get("store/test/dummy1-dummy1.json")));
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testCorruptedBinary() throws InterruptedException, ExecutionException, IOException {
+        Files.createDirectories(Paths.get(RepoStore.TEST_DIRECTORY));
+        Files.write(Paths.get(RepoStore.TEST_DIRECTORY, "testrepo-testrepo.bin"), "abcde".getBytes("UTF-8"));
+
+        new BinaryStore().loadRepository("testrepo/testrepo").get();
+    }
+
+    @Test
+    public void testMigrationFromJSON() throws ExecutionException, InterruptedException {
+        Model model = createModel();
+        new JSONStore().saveRepository(REPO, new SerializableModel(model)).get();
+
+        BinaryStore binaryStore = new BinaryStore();
+        List<String> storedRepos = binaryStore.getStoredRepos();
+
+        // The repository is now stored in binary only
+        assertEquals(1, storedRepos.size());
+        assertEquals(REPO, storedRepos.get(0));
+        assertFalse(Files.exists(Paths.get("store/test/dummy1-dummy1.json")));
+        assertEquals(model, binaryStore.loadRepository(REPO).get());
+    }
+
+    @Test
+    public void testRepoIOWithBinaryStore() throws ExecutionException, InterruptedException {
+        RepoIO testIO = TestController.createTestingRepoIO(Optional.of(new BinaryStore()));
+        Model dummy1 = testIO.openRepository(REPO).get();
+        assertEquals(10, dummy1.getIssues().size());
+
+        // Spawn new issue, then trigger store
+        UI.events.triggerEvent(UpdateDummyRepoEvent.newIssue(REPO));
+        dummy1 = testIO.updateModel(dummy1).get();
+        assertEquals(11, dummy1.getIssues().size());
+
+        // A new RepoIO loads the repository from the binary store, rather than downloading it again
+        RepoIO alternateIO = TestController.createTestingRepoIO(Optional.of(new BinaryStore()));
+        assertEquals(1, alternateIO.getStoredRepos().size());
+        assertEquals(11, alternateIO.openRepository(REPO).get().getIssues().size());
+    }
+
+    @After
+    public void cleanup() {
+        UITest.clearTestFolder();
+    }
+}
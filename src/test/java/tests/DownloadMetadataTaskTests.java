@@ -0,0 +1,84 @@
+package tests;
+
+import backend.IssueMetadata;
+import backend.github.DownloadMetadataTask;
+import backend.interfaces.Repo;
+import backend.resource.TurboIssue;
+import backend.stub.DummySource;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DownloadMetadataTaskTests {
+
+    private static final String REPO = "test/test";
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private final AtomicInteger maxInProgress = new AtomicInteger();
+
+    /**
+     * Creates a repo whose events requests take a little while, recording how many overlap
+     */
+    private Repo createRepo(int remainingRequests) {
+        Repo repo = mock(Repo.class);
+        when(repo.getRemainingRequests()).thenReturn(remainingRequests);
+        when(repo.getUpdatedEvents(anyString(), anyInt(), anyString())).thenAnswer(invocation -> {
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inProgress.decrementAndGet();
+            return new ImmutablePair<>(new ArrayList<>(), "etag" + invocation.getArguments()[1]);
+        });
+        when(repo.getUpdatedComments(anyString(), any(TurboIssue.class), anyString()))
+                .thenReturn(new ImmutablePair<>(new ArrayList<>(), "comments"));
+        return repo;
+    }
+
+    private static List<TurboIssue> createIssues(int count) {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            issues.add(new TurboIssue(REPO, i, "Issue " + i));
+        }
+        return issues;
+    }
+
+    private static Map<Integer, IssueMetadata> download(Repo repo, List<TurboIssue> issues, int concurrency)
+            throws ExecutionException, InterruptedException {
+        DownloadMetadataTask task = new DownloadMetadataTask(new DummySource(), repo, REPO, issues, concurrency);
+        task.run();
+        return task.response.get();
+    }
+
+    @Test
+    public void testConcurrentDownload() throws ExecutionException, InterruptedException {
+        Map<Integer, IssueMetadata> result = download(createRepo(-1), createIssues(20), 4);
+
+        assertEquals(20, result.size());
+        for (int i = 1; i <= 20; i++) {
+            assertEquals("etag" + i, result.get(i).getEventsETag());
+            assertEquals("comments", result.get(i).getCommentsETag());
+        }
+        assertTrue(maxInProgress.get() <= 4);
+    }
+
+    @Test
+    public void testSequentialNearRateLimit() throws ExecutionException, InterruptedException {
+        // Fewer requests remain than 20 issues may need
+        Map<Integer, IssueMetadata> result = download(createRepo(30), createIssues(20), 4);
+
+        assertEquals(20, result.size());
+        assertEquals(1, maxInProgress.get());
+    }
+}
@@ -0,0 +1,179 @@
+package tests;
+
+import backend.DownloadCheckpoint;
+import backend.github.DownloadRepoTask;
+import backend.interfaces.Repo;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.stub.DummySource;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ui.UI;
+import util.events.EventDispatcherStub;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DownloadRepoTaskTests {
+
+    private static final String REPO = "test/test";
+    private static final int PAGE_SIZE = 10;
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private final AtomicInteger maxInProgress = new AtomicInteger();
+
+    @BeforeClass
+    public static void setup() {
+        UI.events = new EventDispatcherStub();
+    }
+
+    /**
+     * Creates a repo with the given number of pages of issues, numbered in order. Earlier pages take
+     * longer to download, so that they finish out of order; overlapping page requests are recorded.
+     */
+    private Repo createRepo(int remainingRequests, int lastPage) throws IOException {
+        Repo repo = mock(Repo.class);
+        when(repo.getRemainingRequests()).thenReturn(remainingRequests);
+        when(repo.getIssuesPage(anyString(), anyInt())).thenAnswer(invocation -> {
+            int page = (int) invocation.getArguments()[1];
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            Thread.sleep(10 * (lastPage - page + 1));
+            inProgress.decrementAndGet();
+
+            List<TurboIssue> issues = new ArrayList<>();
+            for (int i = (page - 1) * PAGE_SIZE + 1; i <= page * PAGE_SIZE; i++) {
+                issues.add(new TurboIssue(REPO, i, "Issue " + i));
+            }
+            return new ImmutablePair<>(issues, lastPage);
+        });
+        List<TurboLabel> labels = new ArrayList<>();
+        labels.add(new TurboLabel(REPO, "bug"));
+        when(repo.getLabels(anyString())).thenReturn(labels);
+        when(repo.getMilestones(anyString())).thenReturn(new ArrayList<>());
+        when(repo.getCollaborators(anyString())).thenReturn(new ArrayList<>());
+        return repo;
+    }
+
+    private static Model download(Repo repo) throws ExecutionException, InterruptedException {
+        return download(repo, Optional.empty(), checkpoint -> {});
+    }
+
+    private static Model download(Repo repo, Optional<DownloadCheckpoint> resumeFrom,
+                                  Consumer<DownloadCheckpoint> onCheckpoint)
+            throws ExecutionException, InterruptedException {
+        DownloadRepoTask task = new DownloadRepoTask(new DummySource(), repo, REPO, resumeFrom, onCheckpoint, 4);
+        task.run();
+        return task.response.get();
+    }
+
+    private static void assertIssuesInOrder(Model model, int count) {
+        assertEquals(count, model.getIssues().size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1, model.getIssues().get(i).getId());
+        }
+    }
+
+    @Test
+    public void testConcurrentDownload() throws ExecutionException, InterruptedException, IOException {
+        Model model = download(createRepo(-1, 8));
+
+        assertIssuesInOrder(model, 8 * PAGE_SIZE);
+        assertEquals(1, model.getLabels().size());
+        assertTrue(maxInProgress.get() > 1);
+        assertTrue(maxInProgress.get() <= 4);
+    }
+
+    @Test
+    public void testSequentialNearRateLimit() throws ExecutionException, InterruptedException, IOException {
+        // Fewer requests remain than there are pages left
+        Model model = download(createRepo(5, 8));
+
+        assertIssuesInOrder(model, 8 * PAGE_SIZE);
+        assertEquals(1, maxInProgress.get());
+    }
+
+    @Test
+    public void testDuplicateIssues() throws ExecutionException, InterruptedException, IOException {
+        Repo repo = createRepo(-1, 2);
+        // An issue opened during the download pushes the last issue of the first page onto the second
+        List<TurboIssue> secondPage = new ArrayList<>();
+        for (int i = PAGE_SIZE; i < 2 * PAGE_SIZE; i++) {
+            secondPage.add(new TurboIssue(REPO, i, "Issue " + i));
+        }
+        when(repo.getIssuesPage(REPO, 2)).thenReturn(new ImmutablePair<>(secondPage, 2));
+
+        assertIssuesInOrder(download(repo), 2 * PAGE_SIZE - 1);
+    }
+
+    @Test
+    public void testCheckpoints() throws ExecutionException, InterruptedException, IOException {
+        // Pages are downloaded one at a time, so that checkpoints fall on known pages
+        List<DownloadCheckpoint> checkpoints = new ArrayList<>();
+        download(createRepo(5, 25), Optional.empty(), checkpoints::add);
+
+        // Checkpoints are made every 10 pages, with the pages before them in order, but not at the end
+        assertEquals(2, checkpoints.size());
+        assertEquals(10, checkpoints.get(0).completedPages);
+        assertEquals(10 * PAGE_SIZE, checkpoints.get(0).issues.size());
+        assertEquals(20, checkpoints.get(1).completedPages);
+        for (int i = 0; i < 20 * PAGE_SIZE; i++) {
+            assertEquals(i + 1, checkpoints.get(1).issues.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testResume() throws ExecutionException, InterruptedException, IOException {
+        Repo repo = createRepo(-1, 8);
+        List<TurboIssue> downloaded = new ArrayList<>();
+        for (int i = 1; i <= 5 * PAGE_SIZE; i++) {
+            downloaded.add(new TurboIssue(REPO, i, "Issue " + i));
+        }
+        Date startTime = new Date(1000);
+
+        Model model = download(repo, Optional.of(new DownloadCheckpoint(REPO, downloaded, 5, startTime)),
+                               checkpoint -> {});
+
+        // Only the pages after the checkpoint are downloaded again
+        assertIssuesInOrder(model, 8 * PAGE_SIZE);
+        for (int page = 1; page <= 5; page++) {
+            verify(repo, never()).getIssuesPage(REPO, page);
+        }
+        // Issues changed since the download was first started will be updated
+        assertEquals(startTime, model.getUpdateSignature().lastCheckTime);
+    }
+
+    @Test
+    public void testInterrupted() throws InterruptedException, IOException {
+        Repo repo = createRepo(5, 8);
+        when(repo.getIssuesPage(REPO, 4)).thenThrow(new IOException("Connection reset"));
+        List<DownloadCheckpoint> checkpoints = new ArrayList<>();
+
+        try {
+            download(repo, Optional.empty(), checkpoints::add);
+            fail();
+        } catch (ExecutionException e) {
+            // The pages before the failed one are kept, so the download can be resumed from there
+            assertEquals(1, checkpoints.size());
+            assertEquals(3, checkpoints.get(0).completedPages);
+            assertEquals(3 * PAGE_SIZE, checkpoints.get(0).issues.size());
+        }
+    }
+}
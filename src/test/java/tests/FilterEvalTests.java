@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import org.junit.Test;
 
@@ -726,4 +727,36 @@ public class FilterEvalTests {
         assertFalse(Qualifier.labelMatches("pi.hi", "p.high"));
         assertFalse(Qualifier.labelMatches(".", "p.high"));
     }
+
+    @Test
+    public void compiledFilter() {
+        TurboIssue issue1 = new TurboIssue(REPO, 1, "Issue 1");
+        issue1.addLabel("p.high");
+        TurboIssue issue2 = new TurboIssue(REPO, 2, "Issue 2");
+        issue2.addLabel("p.low");
+        TurboIssue issue3 = new TurboIssue("other/repo", 3, "Issue 3");
+        issue3.addLabel("p.high");
+
+        IModel model = TestUtils.singletonModel(new Model(REPO,
+            new ArrayList<>(Arrays.asList(issue1, issue2)),
+            new ArrayList<>(Arrays.asList(new TurboLabel(REPO, "p.high"), new TurboLabel(REPO, "p.low"))),
+            new ArrayList<>(),
+            new ArrayList<>()));
+
+        // A compiled filter can be reused across issues, and agrees with process
+        for (String filter : Arrays.asList("label:p.hi", "issue OR label:low", "-label:p.high",
+                                           "in:title issue", "repo:other/repo", "label:p.high sort:id")) {
+            FilterExpression expr = Parser.parse(filter);
+            Predicate<TurboIssue> compiled = Qualifier.compileFilter(model, expr);
+            for (TurboIssue issue : Arrays.asList(issue1, issue2, issue3, issue1)) {
+                assertEquals(filter + " " + issue, Qualifier.process(model, expr, issue), compiled.test(issue));
+            }
+        }
+
+        Predicate<TurboIssue> labelFilter = Qualifier.compileFilter(model, Parser.parse("label:p.hi"));
+        assertTrue(labelFilter.test(issue1));
+        assertFalse(labelFilter.test(issue2));
+        // Issues outside the default repository are excluded without a repo qualifier
+        assertFalse(labelFilter.test(issue3));
+    }
 }
@@ -1,7 +1,9 @@
 package tests;
 
+import com.google.gson.reflect.TypeToken;
 import github.GitHubClientEx;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
 import org.eclipse.egit.github.core.Milestone;
 import org.eclipse.egit.github.core.client.GitHubResponse;
 import org.eclipse.egit.github.core.client.PagedRequest;
@@ -12,14 +14,20 @@ import org.mockserver.model.HttpRequest;
 import org.mockserver.model.Parameter;
 import org.mockserver.verify.VerificationTimes;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.CONTENT_TYPE_JSON;
 import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockserver.model.HttpRequest.request;
 import static org.mockserver.model.HttpResponse.response;
 
@@ -88,4 +96,78 @@ public class GitHubClientExTests {
 
         mockServer.stop();
     }
+
+    /**
+     * Tests that getAllIfModified makes a conditional request, returning the items and their ETag
+     * when they have been modified, and nothing when the server responds with 304 Not Modified
+     * @throws IOException
+     */
+    @Test
+    public void testGetAllIfModified() throws IOException {
+        MockServerClient mockServer = ClientAndServer.startClientAndServer(8888);
+        String path = TestUtils.API_PREFIX + "/repos/repo/issues/1/comments";
+        String eTagValue = "aaf65fc6b10d5afbdc9cd0aa6e6ada4c";
+
+        mockServer
+                .when(request().withPath(path).withHeader("If-None-Match", "\"" + eTagValue + "\""))
+                .respond(response().withStatusCode(HttpURLConnection.HTTP_NOT_MODIFIED));
+        mockServer
+                .when(request().withPath(path))
+                .respond(response().withHeader("ETag", "\"" + eTagValue + "\"").withBody("[{\"id\":1},{\"id\":2}]"));
+
+        GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
+
+        Optional<ImmutablePair<List<Comment>, String>> modified = client.getAllIfModified(createCommentsRequest(), "");
+        assertTrue(modified.isPresent());
+        assertEquals(2, modified.get().getLeft().size());
+        assertEquals(eTagValue, modified.get().getRight());
+
+        assertFalse(client.getAllIfModified(createCommentsRequest(), eTagValue).isPresent());
+
+        mockServer.stop();
+    }
+
+    /**
+     * Tests that responses are requested compressed, and that compressed responses are decompressed
+     * as they are parsed
+     * @throws IOException
+     */
+    @Test
+    public void testCompressedResponse() throws IOException {
+        MockServerClient mockServer = ClientAndServer.startClientAndServer(8888);
+        String path = TestUtils.API_PREFIX + "/repos/repo/issues/1/comments";
+
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 1; i <= 100; i++) {
+            body.append(i == 1 ? "" : ",").append("{\"id\":").append(i).append(",\"body\":\"Comment\"}");
+        }
+        body.append("]");
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body.toString().getBytes("UTF-8"));
+        }
+        assertTrue(compressed.size() < body.length());
+
+        HttpRequest expectedRequest = request().withPath(path).withHeader("Accept-Encoding", "gzip");
+        mockServer
+                .when(expectedRequest)
+                .respond(response().withHeader("Content-Encoding", "gzip").withBody(compressed.toByteArray()));
+
+        GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
+        Optional<ImmutablePair<List<Comment>, String>> result = client.getAllIfModified(createCommentsRequest(), "");
+
+        mockServer.verify(expectedRequest, VerificationTimes.exactly(1));
+        assertTrue(result.isPresent());
+        assertEquals(100, result.get().getLeft().size());
+        assertEquals("Comment", result.get().getLeft().get(99).getBody());
+
+        mockServer.stop();
+    }
+
+    private static PagedRequest<Comment> createCommentsRequest() {
+        PagedRequest<Comment> request = new PagedRequest<>();
+        request.setUri(SEGMENT_REPOS + "/repo/issues/1/comments");
+        request.setType(new TypeToken<List<Comment>>() {}.getType());
+        return request;
+    }
 }
@@ -4,17 +4,14 @@ import github.GitHubEventsResponse;
 import github.IssueEventType;
 import github.TurboIssueEvent;
 import org.apache.commons.io.IOUtils;
-import org.eclipse.egit.github.core.IssueEvent;
-import org.eclipse.egit.github.core.User;
-import org.eclipse.egit.github.core.client.GitHubResponse;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Date;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Ensures the conversion from GitHub responses' body to HubTurbo resource objects are correct.
@@ -23,22 +20,8 @@ public class GitHubResponsesTest {
 
     @Test
     public void gitHubEventsResponseConstructorTest() throws IOException {
-        // Must match the details in eventsResponseJson of gitHubEventsResponseJsonStream.
-        IssueEvent testNonSelfEvent = new IssueEvent()
-                .setActor(new User().setLogin("test-nonself"))
-                .setCreatedAt(new Date())
-                .setEvent("renamed");
-        IssueEvent testSelfEvent = new IssueEvent()
-                .setActor(new User().setLogin("test"))
-                .setCreatedAt(new Date())
-                .setEvent("milestoned");
-        IssueEvent[] testEvents = { testNonSelfEvent, testSelfEvent };
-
-        // We parse the input stream string here.
-        GitHubResponse testResponse = new GitHubResponse(null, testEvents);
-        GitHubEventsResponse testEventsResponse = new GitHubEventsResponse(testResponse,
-                                                                           gitHubEventsResponseJsonStream(),
-                                                                           "");
+        // The events are parsed directly from the response body
+        GitHubEventsResponse testEventsResponse = new GitHubEventsResponse(gitHubEventsResponseJsonStream(), "");
         List<TurboIssueEvent> issueEvents = testEventsResponse.getTurboIssueEvents();
 
         // Will fail if the GitHubEventsResponse constructor doesn't parse properly.
@@ -48,6 +31,33 @@ public class GitHubResponsesTest {
         assertEquals("test issue 1.1", issueEvents.get(0).getRenamedTo());
         assertEquals(IssueEventType.Milestoned, issueEvents.get(1).getType());
         assertEquals("3.0.0", issueEvents.get(1).getMilestoneTitle());
+        assertEquals("test", issueEvents.get(1).getActor().getLogin());
+    }
+
+    @Test
+    public void gitHubEventsResponseDetailsTest() throws IOException {
+        String eventsResponseJson =
+                "[{\"id\":1,\"event\":\"labeled\",\"created_at\":\"2015-06-12T02:24:14Z\"," +
+                "\"label\":{\"name\":\"type.bug\",\"color\":\"fc2929\"}," +
+                "\"actor\":{\"login\":\"test\",\"avatar_url\":\"http://avatar\"}}," +
+                "{\"event\":\"assigned\",\"actor\":{\"login\":\"test\"},\"commit_id\":null," +
+                "\"assignee\":{\"login\":\"test-nonself\",\"id\":2}," +
+                "\"created_at\":\"2015-06-12T02:24:15Z\"}," +
+                "{\"event\":\"closed\",\"actor\":{\"login\":\"test\"}," +
+                "\"created_at\":\"2015-06-12T02:24:16Z\"}]";
+        List<TurboIssueEvent> issueEvents = new GitHubEventsResponse(
+                IOUtils.toInputStream(eventsResponseJson, "UTF-8"), "").getTurboIssueEvents();
+
+        // Fields may come in any order, and unknown fields are skipped
+        assertEquals(3, issueEvents.size());
+        assertEquals(IssueEventType.Labeled, issueEvents.get(0).getType());
+        assertEquals("type.bug", issueEvents.get(0).getLabelName());
+        assertEquals("fc2929", issueEvents.get(0).getLabelColour());
+        assertEquals("http://avatar", issueEvents.get(0).getActor().getAvatarUrl());
+        assertEquals(IssueEventType.Assigned, issueEvents.get(1).getType());
+        assertEquals("test-nonself", issueEvents.get(1).getAssignedUser().getLogin());
+        assertEquals(IssueEventType.Closed, issueEvents.get(2).getType());
+        assertTrue(issueEvents.get(0).getDate().before(issueEvents.get(2).getDate()));
     }
 
     /**
@@ -0,0 +1,99 @@
+package tests;
+
+import backend.IssueChanges;
+import backend.resource.Model;
+import backend.resource.ModelDelta;
+import backend.resource.TurboIssue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IssueChangesTests {
+
+    private static final String REPO = "test/test";
+
+    private static final Predicate<TurboIssue> ALL = issue -> true;
+    private static final Comparator<TurboIssue> BY_ID = (a, b) -> a.getId() - b.getId();
+
+    private static Model model(TurboIssue... issues) {
+        return new Model(REPO, Arrays.asList(issues), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    private static IssueChanges changes(Model before, Model after) {
+        IssueChanges changes = new IssueChanges(Arrays.asList(after));
+        changes.add(ModelDelta.between(before, after));
+        return changes;
+    }
+
+    @Test
+    public void testNoChanges() {
+        TurboIssue issue = new TurboIssue(REPO, 1, "Issue 1");
+        Model before = model(issue);
+
+        IssueChanges changes = changes(before, model(issue));
+        assertTrue(changes.isEmpty());
+        assertEquals(Arrays.asList(issue), changes.applyTo(Arrays.asList(issue), ALL, BY_ID));
+    }
+
+    @Test
+    public void testChangedAddedAndRemoved() {
+        TurboIssue unchanged = new TurboIssue(REPO, 1, "unchanged");
+        TurboIssue changed = new TurboIssue(REPO, 2, "changed");
+        TurboIssue removed = new TurboIssue(REPO, 3, "removed");
+        TurboIssue leaving = new TurboIssue(REPO, 4, "leaving");
+        Model before = model(unchanged, changed, removed, leaving);
+
+        TurboIssue changedCopy = new TurboIssue(REPO, 2, "changed again");
+        TurboIssue leavingCopy = new TurboIssue(REPO, 4, "left");
+        TurboIssue added = new TurboIssue(REPO, 5, "added");
+        TurboIssue addedElsewhere = new TurboIssue(REPO, 0, "added elsewhere");
+        Model after = model(unchanged, changedCopy, leavingCopy, added, addedElsewhere);
+
+        IssueChanges changes = changes(before, after);
+        assertFalse(changes.isEmpty());
+
+        // Stale instances are removed, and fresh ones matching the filter are inserted in sorted position
+        List<TurboIssue> result = changes.applyTo(Arrays.asList(unchanged, changed, removed, leaving),
+                issue -> !issue.getTitle().equals("left"), BY_ID);
+        assertEquals(Arrays.asList(addedElsewhere, unchanged, changedCopy, added), result);
+        assertSame(changedCopy, result.get(2));
+    }
+
+    @Test
+    public void testDescendingOrder() {
+        TurboIssue first = new TurboIssue(REPO, 1, "first");
+        TurboIssue third = new TurboIssue(REPO, 3, "third");
+        Model before = model(first, third);
+
+        TurboIssue second = new TurboIssue(REPO, 2, "second");
+        IssueChanges changes = changes(before, model(first, second, third));
+        assertEquals(Arrays.asList(third, second, first),
+                changes.applyTo(Arrays.asList(third, first), ALL, BY_ID.reversed()));
+    }
+
+    @Test
+    public void testEqualIssuesInModelOrder() {
+        TurboIssue first = new TurboIssue(REPO, 1, "first");
+        TurboIssue second = new TurboIssue(REPO, 2, "second");
+        TurboIssue third = new TurboIssue(REPO, 3, "third");
+        Model before = model(first, second, third);
+
+        // Issues which compare equal end up as a stable sort of the new model would leave them
+        TurboIssue added = new TurboIssue(REPO, 4, "added");
+        TurboIssue secondCopy = new TurboIssue(REPO, 2, "second again");
+        Model after = model(added, first, secondCopy, third);
+
+        IssueChanges changes = changes(before, after);
+        assertEquals(Arrays.asList(added, first, secondCopy, third),
+                changes.applyTo(Arrays.asList(first, second, third), ALL, (a, b) -> 0));
+    }
+}
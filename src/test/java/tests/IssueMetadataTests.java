@@ -1,6 +1,8 @@
 package tests;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -13,7 +15,9 @@ import org.eclipse.egit.github.core.User;
 import org.junit.Test;
 
 import backend.IssueMetadata;
+import backend.resource.serialization.SerializableIssueMetadata;
 import github.IssueEventType;
+import github.ReviewComment;
 import github.TurboIssueEvent;
 import util.Utility;
 
@@ -127,6 +131,42 @@ public class IssueMetadataTests {
         assertEquals("comments", updated.getCommentsETag());
     }
 
+    @Test
+    public void serialization() {
+        List<TurboIssueEvent> events = stubEvents();
+        events.get(2).setAssignedUser(new User().setLogin("assignee"));
+        List<Comment> comments = stubComments();
+        ReviewComment reviewComment = new ReviewComment();
+        reviewComment.setUser(new User().setLogin("test-nonself"));
+        reviewComment.setCreatedAt(now);
+        reviewComment.setUpdatedAt(now);
+        comments.add(reviewComment);
+
+        IssueMetadata original = IssueMetadata.intermediate(events, comments, "events", "comments").full("test");
+        IssueMetadata restored = IssueMetadata.fromSerializable(new SerializableIssueMetadata(original));
+
+        assertEquals(3, restored.getEvents().size());
+        assertEquals(IssueEventType.Assigned, restored.getEvents().get(2).getType());
+        assertEquals("test-nonself", restored.getEvents().get(2).getActor().getLogin());
+        assertEquals("assignee", restored.getEvents().get(2).getAssignedUser().getLogin());
+        assertEquals(now, restored.getEvents().get(2).getDate());
+
+        assertEquals(4, restored.getComments().size());
+        assertFalse(restored.getComments().get(0) instanceof ReviewComment);
+        assertTrue(restored.getComments().get(3) instanceof ReviewComment);
+        assertEquals(now, restored.getComments().get(3).getCreatedAt());
+
+        assertEquals("events", restored.getEventsETag());
+        assertEquals("comments", restored.getCommentsETag());
+        assertEquals(original.getNonSelfUpdatedAt(), restored.getNonSelfUpdatedAt());
+        assertEquals(original.getNonSelfCommentCount(), restored.getNonSelfCommentCount());
+
+        // Restored metadata has to be confirmed with the server before it is considered the latest
+        assertFalse(restored.isLatest());
+        assertTrue(IssueMetadata.empty().isEmpty());
+        assertFalse(restored.isEmpty());
+    }
+
     private static List<TurboIssueEvent> stubEvents() {
         List<TurboIssueEvent> events = new ArrayList<>();
         events.add(new TurboIssueEvent(new User().setLogin("test"), IssueEventType.Closed, now));
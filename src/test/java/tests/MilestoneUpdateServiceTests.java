@@ -11,6 +11,7 @@ import org.mockserver.client.server.MockServerClient;
 import org.mockserver.junit.MockServerRule;
 import org.mockserver.model.Header;
 import org.mockserver.model.HttpRequest;
+import org.mockserver.verify.VerificationTimes;
 import util.Utility;
 
 import java.io.IOException;
@@ -26,6 +27,8 @@ public class MilestoneUpdateServiceTests {
 
     private final MockServerClient mockServer = new MockServerClient("localhost", 8888);
     private static final String resourceDir = "tests/PagedMilestonesSample/";
+    private static final Header PAGE1_CONDITION = new Header("If-None-Match", "\"4c0ad3c08dc706b76d8277a88a4c037e\"");
+    private static final Header PAGE2_CONDITION = new Header("If-None-Match", "\"4b56f029e953e9983344b9e0b60d9a71\"");
 
     private final String page1Header;
     private final String page1;
@@ -44,24 +47,29 @@ public class MilestoneUpdateServiceTests {
         List<Header> page1Headers = TestUtils.parseHeaderRecord(page1Header);
         List<Header> page2Headers = TestUtils.parseHeaderRecord(page2Header);
 
+        // Conditional requests with the current ETags must be set up first to take precedence
         mockServer.when(
-                createMockServerRequest("HEAD", 1)
+                createMockServerRequest("GET", 1).withHeader(PAGE1_CONDITION)
         ).respond(
-                response().withHeaders(page1Headers)
+                response()
+                        .withStatusCode(304)
+                        .withHeader(new Header("Date", "Sun, 27 Dec 2015 16:00:00 GMT"))
         );
 
         mockServer.when(
-                createMockServerRequest("GET", 1)
+                createMockServerRequest("GET", 2).withHeader(PAGE2_CONDITION)
         ).respond(
                 response()
-                        .withHeaders(page1Headers)
-                        .withBody(page1)
+                        .withStatusCode(304)
+                        .withHeader(new Header("Date", "Sun, 27 Dec 2015 16:00:00 GMT"))
         );
 
         mockServer.when(
-                createMockServerRequest("HEAD", 2)
+                createMockServerRequest("GET", 1)
         ).respond(
-                response().withHeaders(page2Headers)
+                response()
+                        .withHeaders(page1Headers)
+                        .withBody(page1)
         );
 
         mockServer.when(
@@ -112,6 +120,48 @@ public class MilestoneUpdateServiceTests {
                 service.getUpdatedCheckTime());
     }
 
+    /**
+     * Tests that pages retrieved before are requested conditionally on their ETags, and that
+     * when none of them have been modified, getUpdatedItems returns empty result
+     */
+    @Test
+    public void testGetUpdatedMilestonesNotModified() {
+        GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
+        String eTags = "4c0ad3c08dc706b76d8277a88a4c037e#4b56f029e953e9983344b9e0b60d9a71";
+        assertEquals(188, new MilestoneUpdateService(client, "")
+                .getUpdatedItems(RepositoryId.createFromId("teammates/repo")).size());
+
+        MilestoneUpdateService service = new MilestoneUpdateService(client, eTags);
+        List<Milestone> milestones = service.getUpdatedItems(RepositoryId.createFromId("teammates/repo"));
+
+        assertTrue(milestones.isEmpty());
+        assertEquals(eTags, service.getUpdatedETags());
+        assertEquals(Utility.parseHTTPLastModifiedDate("Sun, 27 Dec 2015 16:00:00 GMT"),
+                service.getUpdatedCheckTime());
+        mockServer.verify(createMockServerRequest("GET", 1).withHeader(PAGE1_CONDITION), VerificationTimes.once());
+        mockServer.verify(createMockServerRequest("GET", 2).withHeader(PAGE2_CONDITION), VerificationTimes.once());
+    }
+
+    /**
+     * Tests that when only the 2nd page has been modified, only that page is downloaded again,
+     * and getUpdatedItems returns the items of both pages
+     */
+    @Test
+    public void testGetUpdatedMilestonesPageModified() {
+        GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
+        new MilestoneUpdateService(client, "").getUpdatedItems(RepositoryId.createFromId("teammates/repo"));
+
+        String previousETags = "4c0ad3c08dc706b76d8277a88a4c037e#ffffff";
+        String expectedETags = "4c0ad3c08dc706b76d8277a88a4c037e#4b56f029e953e9983344b9e0b60d9a71";
+        MilestoneUpdateService service = new MilestoneUpdateService(client, previousETags);
+        List<Milestone> milestones = service.getUpdatedItems(RepositoryId.createFromId("teammates/repo"));
+
+        assertEquals(188, milestones.size());
+        assertEquals(expectedETags, service.getUpdatedETags());
+        mockServer.verify(createMockServerRequest("GET", 1).withHeader(PAGE1_CONDITION), VerificationTimes.once());
+        mockServer.verify(createMockServerRequest("GET", 2), VerificationTimes.exactly(2));
+    }
+
     private static HttpRequest createMockServerRequest(String method, int page) {
         return TestUtils.createMockServerRequest(method, page, "teammates/repo", "19369035", "/milestones");
     }
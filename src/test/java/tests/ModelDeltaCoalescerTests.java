@@ -0,0 +1,59 @@
+package tests;
+
+import backend.ModelDeltaCoalescer;
+import backend.resource.Model;
+import backend.resource.ModelDelta;
+import backend.resource.TurboIssue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ModelDeltaCoalescerTests {
+
+    private static Model model(String repoId, int issueCount) {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= issueCount; i++) {
+            issues.add(new TurboIssue(repoId, i, "Issue " + i));
+        }
+        return new Model(repoId, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Test
+    public void testCoalescedFlush() throws InterruptedException {
+        BlockingQueue<List<ModelDelta>> flushes = new LinkedBlockingQueue<>();
+        ModelDeltaCoalescer coalescer = new ModelDeltaCoalescer(200, flushes::add);
+
+        Model first1 = model("test/one", 1);
+        Model first2 = model("test/one", 2);
+        Model first3 = model("test/one", 3);
+        Model second1 = model("test/two", 1);
+        Model second2 = model("test/two", 2);
+        coalescer.add(ModelDelta.between(first1, first2));
+        coalescer.add(ModelDelta.between(second1, second2));
+        coalescer.add(ModelDelta.between(first2, first3));
+
+        // Deltas added at about the same time are passed on together, one for each repository
+        List<ModelDelta> deltas = flushes.poll(5, TimeUnit.SECONDS);
+        assertEquals(2, deltas.size());
+        assertEquals("test/one", deltas.get(0).getRepoId());
+        assertSame(first1, deltas.get(0).getBefore());
+        assertSame(first3, deltas.get(0).getAfter());
+        assertEquals(2, deltas.get(0).getAddedIssues().size());
+        assertEquals("test/two", deltas.get(1).getRepoId());
+        assertNull(flushes.poll(500, TimeUnit.MILLISECONDS));
+
+        // Later deltas are passed on in a flush of their own
+        coalescer.add(ModelDelta.between(second2, model("test/two", 3)));
+        assertEquals(Arrays.asList("test/two"),
+            Arrays.asList(flushes.poll(5, TimeUnit.SECONDS).get(0).getRepoId()));
+    }
+}
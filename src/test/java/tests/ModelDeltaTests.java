@@ -0,0 +1,80 @@
+package tests;
+
+import backend.resource.Model;
+import backend.resource.ModelDelta;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ModelDeltaTests {
+
+    private static final String REPO = "test/test";
+
+    private static Model model(List<TurboIssue> issues, List<TurboLabel> labels) {
+        return new Model(REPO, issues, labels, new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Test
+    public void unchangedModel() {
+        List<TurboIssue> issues = Arrays.asList(new TurboIssue(REPO, 1, "a"), new TurboIssue(REPO, 2, "b"));
+        Model before = model(issues, new ArrayList<>());
+
+        ModelDelta delta = ModelDelta.between(before, new Model(before));
+        assertTrue(delta.isEmpty());
+        assertFalse(delta.hasIssueChanges());
+        assertFalse(delta.hasResourceChanges());
+        assertEquals(REPO, delta.getRepoId());
+    }
+
+    @Test
+    public void issueChanges() {
+        TurboIssue unchanged = new TurboIssue(REPO, 1, "unchanged");
+        TurboIssue changed = new TurboIssue(REPO, 2, "changed");
+        TurboIssue removed = new TurboIssue(REPO, 3, "removed");
+        Model before = model(Arrays.asList(unchanged, changed, removed), new ArrayList<>());
+
+        // Issues are compared by identity, so an equal copy counts as a change
+        TurboIssue changedCopy = new TurboIssue(changed);
+        TurboIssue added = new TurboIssue(REPO, 4, "added");
+        Model after = model(Arrays.asList(unchanged, changedCopy, added), new ArrayList<>());
+
+        ModelDelta delta = ModelDelta.between(before, after);
+        assertFalse(delta.isEmpty());
+        assertTrue(delta.hasIssueChanges());
+        assertFalse(delta.hasResourceChanges());
+        assertEquals(1, delta.getAddedIssues().size());
+        assertSame(added, delta.getAddedIssues().get(0));
+        assertEquals(1, delta.getChangedIssues().size());
+        assertSame(changedCopy, delta.getChangedIssues().get(0));
+        assertEquals(1, delta.getRemovedIssues().size());
+        assertSame(removed, delta.getRemovedIssues().get(0));
+        assertSame(before, delta.getBefore());
+        assertSame(after, delta.getAfter());
+    }
+
+    @Test
+    public void resourceChanges() {
+        List<TurboIssue> issues = Arrays.asList(new TurboIssue(REPO, 1, "a"));
+        Model before = model(issues, Arrays.asList(new TurboLabel(REPO, "type.bug")));
+
+        // Equal labels in different instances are not a change
+        ModelDelta delta = ModelDelta.between(before,
+            model(before.getIssues(), Arrays.asList(new TurboLabel(REPO, "type.bug"))));
+        assertTrue(delta.isEmpty());
+
+        delta = ModelDelta.between(before,
+            model(before.getIssues(), Arrays.asList(new TurboLabel(REPO, "type.feature"))));
+        assertFalse(delta.isEmpty());
+        assertFalse(delta.hasIssueChanges());
+        assertTrue(delta.hasResourceChanges());
+    }
+}
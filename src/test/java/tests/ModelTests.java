@@ -8,9 +8,12 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 public class ModelTests {
 
@@ -49,20 +52,30 @@ public class ModelTests {
     @Test
     public void immutability() {
         Model other = new Model(modelUpdated);
-        other.getIssues().add(new TurboIssue(REPO, 11, ""));
+        assertUnmodifiable(() -> other.getIssues().add(new TurboIssue(REPO, 11, "")));
+        assertUnmodifiable(() -> other.getLabels().add(new TurboLabel(REPO, "aksdjl")));
+        assertUnmodifiable(() -> other.getMilestones().add(new TurboMilestone(REPO, 11, "")));
+        assertUnmodifiable(() -> other.getUsers().add(new TurboUser(REPO, "")));
         assertEquals(modelUpdated, other);
 
-        other = new Model(modelUpdated);
-        other.getLabels().add(new TurboLabel(REPO, "aksdjl"));
-        assertEquals(modelUpdated, other);
+        // Lists passed to a model are copied, so later changes to them do not affect it
+        List<TurboIssue> issues = new ArrayList<>(modelUpdated.getIssues());
+        Model model = new Model(REPO, issues, modelUpdated.getLabels(),
+            modelUpdated.getMilestones(), modelUpdated.getUsers(), modelUpdated.getUpdateSignature());
+        issues.add(new TurboIssue(REPO, 11, ""));
+        assertEquals(modelUpdated, model);
+        assertEquals(Optional.<TurboIssue>empty(), model.getIssueById(11));
 
-        other = new Model(modelUpdated);
-        other.getMilestones().add(new TurboMilestone(REPO, 11, ""));
-        assertEquals(modelUpdated, other);
+        // Reading resources does not copy them
+        assertSame(modelUpdated.getIssues(), modelUpdated.getIssues());
+        assertSame(modelUpdated.getLabels(), other.getLabels());
+    }
 
-        other = new Model(modelUpdated);
-        other.getUsers().add(new TurboUser(REPO, ""));
-        assertEquals(modelUpdated, other);
+    private static void assertUnmodifiable(Runnable mutation) {
+        try {
+            mutation.run();
+            fail("Model resources should not be modifiable");
+        } catch (UnsupportedOperationException ignored) {}
     }
 
     @Test
@@ -267,4 +280,39 @@ public class ModelTests {
         assertEquals(Optional.<TurboUser>empty(), modelUpdated.getUserByLogin("User 11"));
         assertEquals("User 10", modelUpdated.getUserByLogin("User 10").get().getLoginName());
     }
+
+    @Test
+    public void indexedLookups() {
+        TurboIssue issue = new TurboIssue(REPO, 1, "Issue 1");
+        issue.setLabels(new ArrayList<>(Arrays.asList("Label 1", "p.high", "Label 2", "nonexistent")));
+        issue.setMilestone(2);
+        issue.setAssignee("User 1");
+
+        TurboLabel duplicate = new TurboLabel(REPO, "000000", "Label 1");
+        Model model = new Model(REPO,
+            new ArrayList<>(Arrays.asList(issue, new TurboIssue(REPO, 1, "Duplicate"))),
+            new ArrayList<>(Arrays.asList(new TurboLabel(REPO, "Label 1"), duplicate,
+                new TurboLabel(REPO, "Label 2"), new TurboLabel(REPO, "p.high"))),
+            new ArrayList<>(Arrays.asList(new TurboMilestone(REPO, 2, "Milestone 2"))),
+            new ArrayList<>(Arrays.asList(new TurboUser(REPO, "User 1"))));
+
+        // The first resource with a given key is the one found, as with a linear search
+        assertEquals("Issue 1", model.getIssueById(1).get().getTitle());
+        assertNotEquals(duplicate.getColour(), model.getLabelByActualName("Label 1").get().getColour());
+
+        assertEquals("Milestone 2", model.getMilestoneOfIssue(issue).get().getTitle());
+        assertEquals("User 1", model.getAssigneeOfIssue(issue).get().getLoginName());
+
+        // Labels which are not in the model are left out, and the issue's ordering is kept
+        assertEquals(Arrays.asList("Label 1", "p.high", "Label 2"), model.getLabelsOfIssue(issue).stream()
+            .map(TurboLabel::getActualName)
+            .collect(Collectors.toList()));
+        assertEquals(Arrays.asList("p.high"), model.getLabelsOfIssue(issue, TurboLabel::hasGroup).stream()
+            .map(TurboLabel::getActualName)
+            .collect(Collectors.toList()));
+
+        // Mutating an issue does not invalidate the index
+        model.getIssueById(1).get().setTitle("Renamed");
+        assertEquals("Renamed", new Model(model).getIssueById(1).get().getTitle());
+    }
 }
@@ -2,7 +2,9 @@ package tests;
 
 import backend.RepoIO;
 import backend.json.JSONStoreStub;
+import backend.resource.Model;
 import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import prefs.Preferences;
@@ -11,6 +13,9 @@ import ui.UI;
 import ui.components.StatusUIStub;
 import util.events.EventDispatcherStub;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
@@ -62,4 +67,28 @@ public class MultiModelTest {
         assertEquals(false, models.getModelById(repoId2).isPresent());
     }
 
+    @Test
+    public void testSnapshots() {
+        final String repoId1 = "dummy1/dummy1";
+        final String repoId2 = "dummy2/dummy2";
+        MultiModel models = new MultiModel(mock(Preferences.class));
+        Model model1 = new Model(repoId1, Arrays.asList(new TurboIssue(repoId1, 1, "Issue 1")),
+            new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        Model model2 = new Model(repoId2, Arrays.asList(new TurboIssue(repoId2, 1, "Issue 1")),
+            new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+        models.replace(Arrays.asList(model1));
+        assertSame(model1.getIssues(), models.getIssues());
+
+        models.replace(Arrays.asList(model1, model2));
+        List<TurboIssue> issues = models.getIssues();
+        assertEquals(2, issues.size());
+        // The snapshot is reused until the set of models changes
+        assertSame(issues, models.getIssues());
+
+        models.removeRepoModelById(repoId2);
+        assertEquals(1, models.getIssues().size());
+        assertEquals(2, issues.size());
+    }
+
 }
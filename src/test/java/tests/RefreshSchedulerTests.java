@@ -0,0 +1,131 @@
+package tests;
+
+import backend.RefreshScheduler;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshSchedulerTests {
+
+    private static final String REPO = "test/test";
+    private static final List<String> OPEN_REPOS = Arrays.asList(REPO);
+    private static final Set<String> VISIBLE = new HashSet<>(OPEN_REPOS);
+    private static final Set<String> NOT_VISIBLE = Collections.emptySet();
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void testNewRepository() {
+        RefreshScheduler scheduler = new RefreshScheduler();
+
+        // A repository which has just been opened is not due until an interval has passed
+        assertTrue(scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 0).isEmpty());
+        assertEquals(60, scheduler.getTimeToNextRefresh(0));
+        assertTrue(scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, MINUTE - 1).isEmpty());
+        assertEquals(OPEN_REPOS, scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, MINUTE));
+
+        // It is not taken again while it is being refreshed
+        assertTrue(scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 2 * MINUTE).isEmpty());
+        assertEquals(-1, scheduler.getTimeToNextRefresh(2 * MINUTE));
+    }
+
+    @Test
+    public void testAdaptiveInterval() {
+        RefreshScheduler scheduler = new RefreshScheduler();
+        scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 0);
+
+        // Changes shorten the interval, down to the minimum for visible repositories
+        scheduler.refreshed(REPO, true, 0);
+        assertEquals(30, scheduler.getTimeToNextRefresh(0));
+        scheduler.refreshed(REPO, true, 0);
+        assertEquals(30, scheduler.getTimeToNextRefresh(0));
+
+        // Refreshes without changes lengthen it, up to the maximum for visible repositories
+        for (int i = 0; i < 20; i++) {
+            scheduler.refreshed(REPO, false, 0);
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toSeconds(RefreshScheduler.MAX_VISIBLE_INTERVAL),
+                     scheduler.getTimeToNextRefresh(0));
+
+        // Repositories which are no longer visible back off further
+        scheduler.takeDueRepos(OPEN_REPOS, NOT_VISIBLE, 0);
+        assertEquals(TimeUnit.MILLISECONDS.toSeconds(RefreshScheduler.MAX_BACKGROUND_INTERVAL),
+                     scheduler.getTimeToNextRefresh(0));
+    }
+
+    @Test
+    public void testBackgroundMinimum() {
+        RefreshScheduler scheduler = new RefreshScheduler();
+        scheduler.takeDueRepos(OPEN_REPOS, NOT_VISIBLE, 0);
+        scheduler.refreshed(REPO, true, 0);
+
+        // Busy repositories which are not shown are still not refreshed as often as visible ones
+        assertEquals(TimeUnit.MILLISECONDS.toSeconds(RefreshScheduler.MIN_BACKGROUND_INTERVAL),
+                     scheduler.getTimeToNextRefresh(0));
+    }
+
+    @Test
+    public void testReferencedAgain() {
+        RefreshScheduler scheduler = new RefreshScheduler();
+        scheduler.takeDueRepos(OPEN_REPOS, NOT_VISIBLE, 0);
+        scheduler.refreshed(REPO, false, 0);
+
+        // A repository no panel refers to is left alone for a while...
+        assertTrue(scheduler.takeDueRepos(OPEN_REPOS, NOT_VISIBLE, 10 * MINUTE).isEmpty());
+
+        // ...but is synced as soon as a panel refers to it again
+        assertEquals(OPEN_REPOS, scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 10 * MINUTE));
+    }
+
+    @Test
+    public void testRateLimitBudget() {
+        RefreshScheduler scheduler = new RefreshScheduler();
+        scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 0);
+
+        // Refreshing every minute for an hour would take 360 requests
+        scheduler.updateRateLimit(5000, 60 * MINUTE);
+        assertEquals(60, scheduler.getTimeToNextRefresh(0));
+
+        // With half of that left, refreshes are spread out twice as much
+        scheduler.updateRateLimit(180, 60 * MINUTE);
+        assertEquals(120, scheduler.getTimeToNextRefresh(0));
+
+        // But not past the time of reset
+        scheduler.updateRateLimit(0, 10 * MINUTE);
+        assertEquals(600, scheduler.getTimeToNextRefresh(0));
+    }
+
+    @Test
+    public void testRefreshNow() {
+        RefreshScheduler scheduler = new RefreshScheduler();
+        scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 0);
+
+        // Repositories may be taken before they are due...
+        assertEquals(OPEN_REPOS, scheduler.takeRepos(OPEN_REPOS, 0));
+        assertEquals(-1, scheduler.getTimeToNextRefresh(0));
+
+        // ...but not while they are being refreshed, whether they were taken that way or because they were due
+        assertTrue(scheduler.takeRepos(OPEN_REPOS, 0).isEmpty());
+        assertTrue(scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 10 * MINUTE).isEmpty());
+        scheduler.refreshed(REPO, false, 10 * MINUTE);
+        assertEquals(OPEN_REPOS, scheduler.takeRepos(OPEN_REPOS, 10 * MINUTE));
+    }
+
+    @Test
+    public void testClosedRepository() {
+        RefreshScheduler scheduler = new RefreshScheduler();
+        scheduler.takeDueRepos(OPEN_REPOS, VISIBLE, 0);
+
+        // Closed repositories are forgotten
+        assertTrue(scheduler.takeDueRepos(Collections.emptyList(), VISIBLE, 0).isEmpty());
+        assertEquals(-1, scheduler.getTimeToNextRefresh(0));
+    }
+}
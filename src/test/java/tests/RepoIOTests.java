@@ -3,14 +3,23 @@ package tests;
 import backend.IssueMetadata;
 import backend.RepoIO;
 import backend.interfaces.RepoSource;
+import backend.interfaces.RepoStore;
+import backend.resource.Model;
 import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableModel;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import ui.UI;
+import ui.components.StatusUIStub;
+import util.events.EventDispatcherStub;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.anyListOf;
@@ -18,6 +27,13 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class RepoIOTests {
+
+    @BeforeClass
+    public static void setup() {
+        UI.events = new EventDispatcherStub();
+        UI.status = new StatusUIStub();
+    }
+
     /**
      * Tests that RepoIO's getIssueMetadata calls RepoSource's downloadMetaData method and
      * receives a corresponding CompletableFuture response
@@ -52,4 +68,30 @@ public class RepoIOTests {
         verify(source, times(1)).replaceIssueLabels(any(TurboIssue.class), anyListOf(String.class));
         assertEquals(response, result);
     }
+
+    /**
+     * Tests that metadata inserted into a model is not written to the store once a newer model
+     * of the repository has been written, as it would overwrite the newer one
+     */
+    @Test
+    public void testSaveSupersededMetadata() throws ExecutionException, InterruptedException {
+        Model model = new Model("test/test");
+        Model updatedModel = new Model("test/test", Arrays.asList(new TurboIssue("test/test", 1, "Issue")),
+                                       new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        RepoSource source = mock(RepoSource.class);
+        doReturn(CompletableFuture.completedFuture(updatedModel)).when(source).updateModel(eq(model), any());
+        RepoStore store = mock(RepoStore.class);
+        doReturn(CompletableFuture.completedFuture(false)).when(store)
+            .saveRepository(anyString(), any(SerializableModel.class));
+
+        RepoIO repoIO = new RepoIO(Optional.of(source), Optional.of(store), Optional.empty());
+        repoIO.updateModel(model).get();
+        verify(store, times(1)).saveRepository(anyString(), any(SerializableModel.class));
+
+        repoIO.saveRepositoryMetadata(model).get();
+        verify(store, times(1)).saveRepository(anyString(), any(SerializableModel.class));
+
+        repoIO.saveRepositoryMetadata(updatedModel).get();
+        verify(store, times(2)).saveRepository(anyString(), any(SerializableModel.class));
+    }
 }
@@ -0,0 +1,138 @@
+package tests;
+
+import backend.interfaces.Repo;
+import backend.interfaces.RepoTask;
+import backend.interfaces.RequestPriority;
+import backend.interfaces.RequestScheduler;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestSchedulerTests {
+
+    /**
+     * A task which records whether it was run or skipped
+     */
+    private static class TestTask extends RepoTask<String> {
+        private final RequestPriority priority;
+        private final boolean isSkippable;
+
+        TestTask(Repo repo, RequestPriority priority, boolean isSkippable) {
+            super(null, repo);
+            this.priority = priority;
+            this.isSkippable = isSkippable;
+        }
+
+        @Override
+        public void run() {
+            response.complete("run");
+        }
+
+        @Override
+        public RequestPriority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public int getEstimatedRequests() {
+            return 10;
+        }
+
+        @Override
+        public Optional<String> getSkippedResponse() {
+            return isSkippable ? Optional.of("skipped") : Optional.empty();
+        }
+    }
+
+    private static Repo createRepo(int remainingRequests, long timeToReset) {
+        Repo repo = mock(Repo.class);
+        when(repo.getRequestLimit()).thenReturn(5000);
+        when(repo.getRemainingRequests()).thenReturn(remainingRequests);
+        when(repo.getRequestsResetTime()).thenReturn(System.currentTimeMillis() + timeToReset);
+        return repo;
+    }
+
+    private static String schedule(RequestScheduler scheduler, TestTask task)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        scheduler.schedule(task);
+        return task.response.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs a task, so that the scheduler learns the rate limit last reported by the repo
+     */
+    private static void reportRateLimit(RequestScheduler scheduler, Repo repo)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        assertEquals("run", schedule(scheduler, new TestTask(repo, RequestPriority.VISIBLE, false)));
+        // The rate limit is read just after the task has completed its response
+        Thread.sleep(100);
+    }
+
+    @Test
+    public void testUnknownRateLimit() throws InterruptedException, ExecutionException, TimeoutException {
+        RequestScheduler scheduler = new RequestScheduler(Executors.newCachedThreadPool());
+        Repo repo = mock(Repo.class);
+        when(repo.getRemainingRequests()).thenReturn(-1);
+
+        assertEquals("run", schedule(scheduler, new TestTask(repo, RequestPriority.BACKGROUND, true)));
+        assertEquals("run", schedule(scheduler, new TestTask(repo, RequestPriority.METADATA, false)));
+    }
+
+    /**
+     * With 2000 of 5000 requests left and half an hour to go, 1250 requests are reserved for higher
+     * priorities than background tasks, and 625 for higher priorities than metadata downloads
+     */
+    @Test
+    public void testEnoughRequests() throws InterruptedException, ExecutionException, TimeoutException {
+        RequestScheduler scheduler = new RequestScheduler(Executors.newCachedThreadPool());
+        Repo repo = createRepo(2000, TimeUnit.MINUTES.toMillis(30));
+
+        reportRateLimit(scheduler, repo);
+        assertEquals("run", schedule(scheduler, new TestTask(repo, RequestPriority.METADATA, false)));
+        assertEquals("run", schedule(scheduler, new TestTask(repo, RequestPriority.BACKGROUND, true)));
+    }
+
+    @Test
+    public void testNearRateLimit() throws InterruptedException, ExecutionException, TimeoutException {
+        RequestScheduler scheduler = new RequestScheduler(Executors.newCachedThreadPool());
+        Repo repo = createRepo(1000, TimeUnit.MINUTES.toMillis(30));
+        reportRateLimit(scheduler, repo);
+
+        // Background tasks are skipped, and metadata downloads still run
+        assertEquals("skipped", schedule(scheduler, new TestTask(repo, RequestPriority.BACKGROUND, true)));
+        assertEquals("run", schedule(scheduler, new TestTask(repo, RequestPriority.METADATA, false)));
+
+        // Tasks which cannot be skipped are held back
+        TestTask held = new TestTask(repo, RequestPriority.BACKGROUND, false);
+        scheduler.schedule(held);
+        Thread.sleep(100);
+        assertFalse(held.response.isDone());
+
+        // Visible tasks still run
+        assertEquals("run", schedule(scheduler, new TestTask(repo, RequestPriority.VISIBLE, true)));
+    }
+
+    @Test
+    public void testRateLimitExceeded() throws InterruptedException, ExecutionException, TimeoutException {
+        RequestScheduler scheduler = new RequestScheduler(Executors.newCachedThreadPool());
+        Repo repo = createRepo(5, 500);
+        reportRateLimit(scheduler, repo);
+
+        assertEquals("skipped", schedule(scheduler, new TestTask(repo, RequestPriority.VISIBLE, true)));
+
+        // Tasks held back are started once the rate limit has been reset
+        TestTask held = new TestTask(repo, RequestPriority.METADATA, false);
+        scheduler.schedule(held);
+        assertFalse(held.response.isDone());
+        assertEquals("run", held.response.get(5, TimeUnit.SECONDS));
+    }
+}
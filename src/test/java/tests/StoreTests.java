@@ -1,11 +1,21 @@
 package tests;
 
+import backend.DownloadCheckpoint;
+import backend.IssueMetadata;
 import backend.RepoIO;
+import backend.UpdateSignature;
 import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
 import backend.json.JSONStore;
 import backend.json.JSONStoreStub;
 import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import backend.stub.DummyRepo;
+import github.IssueEventType;
+import github.TurboIssueEvent;
 import guitests.UITest;
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.User;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -19,8 +29,16 @@ import util.events.testevents.UpdateDummyRepoEvent;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.*;
 
@@ -94,6 +112,31 @@ public class StoreTests {
         UI.status.clear();
     }
 
+    @Test
+    public void testStoredModelShownFirst() throws ExecutionException, InterruptedException {
+        RepoIO testIO = TestController.createTestingRepoIO(Optional.empty());
+        testIO.openRepository("dummy1/dummy1").get();
+        TestUtils.delay(2); // Wait 2 seconds for Gson to convert model to JSON and write
+
+        // The source has moved on since the repository was stored. The event only reaches sources which
+        // exist when it is triggered, so the RepoIO which opens the repository is created first.
+        RepoIO alternateIO = TestController.createTestingRepoIO(Optional.empty());
+        UI.events.triggerEvent(UpdateDummyRepoEvent.newIssue("dummy1/dummy1"));
+
+        List<Model> storedModels = new ArrayList<>();
+        Model dummy1 = alternateIO.openRepository("dummy1/dummy1", storedModels::add).get();
+
+        // The stored model is passed on before it is updated
+        assertEquals(1, storedModels.size());
+        assertEquals(10, storedModels.get(0).getIssues().size());
+        assertEquals(11, dummy1.getIssues().size());
+
+        // Nothing is passed on for a repository which has to be downloaded
+        storedModels.clear();
+        alternateIO.openRepository("dummy2/dummy2", storedModels::add).get();
+        assertTrue(storedModels.isEmpty());
+    }
+
     @Test(expected = ExecutionException.class)
     public void testCorruptedJSON() throws InterruptedException, ExecutionException {
         RepoStore.write("testrepo/testrepo", "abcde", 10);
@@ -102,6 +145,156 @@ public class StoreTests {
         jsonStore.loadRepository("testrepo/testrepo").get();
     }
 
+    @Test
+    public void testStoreRoundTrip() throws InterruptedException, ExecutionException {
+        DummyRepo dummy = new DummyRepo();
+        Model model = new Model("dummy1/dummy1",
+                dummy.getIssues("dummy1/dummy1"),
+                dummy.getLabels("dummy1/dummy1"),
+                dummy.getMilestones("dummy1/dummy1"),
+                dummy.getCollaborators("dummy1/dummy1"),
+                new UpdateSignature("issues", "labels", "milestones", "collaborators", new Date()));
+
+        JSONStore jsonStore = new JSONStore();
+        assertFalse(jsonStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+
+        // Dates and optional fields are written and read back without loss
+        assertEquals(model, jsonStore.loadRepository("dummy1/dummy1").get());
+        assertEquals(1, jsonStore.getStoredRepos().size());
+        assertEquals("dummy1/dummy1", jsonStore.getStoredRepos().get(0));
+    }
+
+    @Test
+    public void testMetadataRoundTrip() throws InterruptedException, ExecutionException {
+        DummyRepo dummy = new DummyRepo();
+        Model model = new Model("dummy1/dummy1",
+                dummy.getIssues("dummy1/dummy1"),
+                dummy.getLabels("dummy1/dummy1"),
+                dummy.getMilestones("dummy1/dummy1"),
+                dummy.getCollaborators("dummy1/dummy1"),
+                new UpdateSignature("issues", "labels", "milestones", "collaborators", new Date()));
+
+        List<TurboIssueEvent> events = new ArrayList<>();
+        events.add(new TurboIssueEvent(new User().setLogin("test-nonself"), IssueEventType.Renamed, new Date(1000)));
+        events.get(0).setRenamedFrom("Old title");
+        events.get(0).setRenamedTo("New title");
+        List<Comment> comments = new ArrayList<>();
+        comments.add(new Comment().setId(1).setUser(new User().setLogin("test")).setCreatedAt(new Date(2000)));
+        model.getIssues().get(0).setMetadata(
+                IssueMetadata.intermediate(events, comments, "events", "comments").full("test"));
+
+        JSONStore jsonStore = new JSONStore();
+        jsonStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get();
+        Model loaded = jsonStore.loadRepository("dummy1/dummy1").get();
+
+        IssueMetadata metadata = loaded.getIssues().get(0).getMetadata();
+        assertEquals("events", metadata.getEventsETag());
+        assertEquals("comments", metadata.getCommentsETag());
+        assertEquals("Old title", metadata.getEvents().get(0).getRenamedFrom());
+        assertEquals("New title", metadata.getEvents().get(0).getRenamedTo());
+        assertEquals(new Date(2000), metadata.getComments().get(0).getCreatedAt());
+        assertEquals(0, metadata.getNonSelfCommentCount());
+        assertEquals(model.getIssues().get(0).getMetadata().getNonSelfUpdatedAt(), metadata.getNonSelfUpdatedAt());
+        assertFalse(metadata.isLatest());
+        assertTrue(loaded.getIssues().get(1).getMetadata().isEmpty());
+    }
+
+    @Test
+    public void testTasksOrderedPerRepo() throws InterruptedException, ExecutionException {
+        DummyRepo dummy = new DummyRepo();
+        Model model = new Model("dummy1/dummy1",
+                dummy.getIssues("dummy1/dummy1"),
+                dummy.getLabels("dummy1/dummy1"),
+                dummy.getMilestones("dummy1/dummy1"),
+                dummy.getCollaborators("dummy1/dummy1"),
+                new UpdateSignature("issues", "labels", "milestones", "collaborators", new Date()));
+
+        // The load is not started until the save before it has completed
+        JSONStore jsonStore = new JSONStore();
+        CompletableFuture<Boolean> saved = jsonStore.saveRepository("dummy1/dummy1", new SerializableModel(model));
+        CompletableFuture<Model> loaded = jsonStore.loadRepository("dummy1/dummy1");
+        assertEquals(model, loaded.get());
+        assertFalse(saved.get());
+    }
+
+    /**
+     * Exposes the ordering of store tasks, so that it can be tested without going through the filesystem
+     */
+    private static class TaskOrderStore extends JSONStoreStub {
+        void add(StoreTask task) {
+            addTask(task);
+        }
+    }
+
+    @Test
+    public void testTasksOrderedCaseInsensitively()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        TaskOrderStore store = new TaskOrderStore();
+        CountDownLatch firstMayFinish = new CountDownLatch(1);
+        AtomicBoolean firstFinished = new AtomicBoolean(false);
+        CompletableFuture<Boolean> secondStarted = new CompletableFuture<>();
+
+        store.add(new StoreTask("dummy1/dummy1") {
+            @Override
+            public void run() {
+                try {
+                    firstMayFinish.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                firstFinished.set(true);
+            }
+        });
+        store.add(new StoreTask("DUMMY1/DUMMY1") {
+            @Override
+            public void run() {
+                secondStarted.complete(firstFinished.get());
+            }
+        });
+
+        // Repo ids differing only in case name the same repository, so the second task waits for the first
+        Thread.sleep(100);
+        assertFalse(secondStarted.isDone());
+        firstMayFinish.countDown();
+        assertTrue(secondStarted.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCheckpointRoundTrip() throws InterruptedException, ExecutionException {
+        DummyRepo dummy = new DummyRepo();
+        DownloadCheckpoint checkpoint =
+                new DownloadCheckpoint("dummy1/dummy1", dummy.getIssues("dummy1/dummy1"), 3, new Date(1000));
+
+        JSONStore jsonStore = new JSONStore();
+        assertFalse(jsonStore.saveCheckpoint(checkpoint).get());
+
+        DownloadCheckpoint loaded = jsonStore.loadCheckpoint("dummy1/dummy1").get().get();
+        assertEquals(checkpoint.issues, loaded.issues);
+        assertEquals(3, loaded.completedPages);
+        assertEquals(new Date(1000), loaded.startTime);
+
+        // Checkpoints are not mistaken for stored repositories, and are gone once removed
+        assertEquals(0, jsonStore.getStoredRepos().size());
+        assertFalse(jsonStore.removeCheckpoint("dummy1/dummy1").get());
+        assertFalse(jsonStore.loadCheckpoint("dummy1/dummy1").get().isPresent());
+    }
+
+    @Test
+    public void testLoadDeletedRepository() throws InterruptedException, ExecutionException, TimeoutException {
+        RepoIO testIO = TestController.createTestingRepoIO(Optional.empty());
+        Model dummy1 = testIO.openRepository("dummy1/dummy1").get();
+        UI.events.triggerEvent(UpdateDummyRepoEvent.newIssue("dummy1/dummy1"));
+        testIO.updateModel(dummy1).get();
+
+        // The repository is listed as stored, but can no longer be loaded, so it is downloaded again
+        RepoIO alternateIO = TestController.createTestingRepoIO(Optional.empty());
+        assertEquals(1, alternateIO.getStoredRepos().size());
+        RepoStore.delete("dummy1/dummy1");
+
+        Model model = alternateIO.openRepository("dummy1/dummy1").get(10, TimeUnit.SECONDS);
+        assertEquals("dummy1/dummy1", model.getRepoId());
+    }
+
     @Test(expected = ExecutionException.class)
     public void testNonExistentJSON() throws InterruptedException, ExecutionException {
         JSONStore jsonStore = new JSONStore();
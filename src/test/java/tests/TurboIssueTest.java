@@ -111,4 +111,36 @@ public class TurboIssueTest {
         assertEquals(issue3.getUpdatedAt(), newIssue3.getUpdatedAt());
         assertEquals(issue4.getUpdatedAt(), newIssue4.getUpdatedAt());
     }
+
+    @Test
+    public void reconcile() {
+        TurboIssue issue1 = new TurboIssue(REPO, 1, "one");
+        TurboIssue issue2 = new TurboIssue(REPO, 2, "two");
+        TurboIssue issue3 = new TurboIssue(REPO, 3, "three");
+        LocalDateTime readAt = LocalDateTime.of(2015, 7, 7, 1, 21);
+        issue2.setMarkedReadAt(Optional.of(readAt));
+        List<TurboIssue> existing = Arrays.asList(issue3, issue1, issue2);
+
+        List<TurboIssue> changed = Arrays.asList(
+            new TurboIssue(REPO, 5, "five"),
+            new TurboIssue(REPO, 2, "two, changed"),
+            new TurboIssue(REPO, 4, "four"));
+
+        List<TurboIssue> reconciled = TurboIssue.reconcile(REPO, existing, changed);
+
+        // Existing issues keep their positions, new issues are appended in order
+        assertEquals(5, reconciled.size());
+        assertEquals(3, reconciled.get(0).getId());
+        assertEquals(1, reconciled.get(1).getId());
+        assertEquals(2, reconciled.get(2).getId());
+        assertEquals(5, reconciled.get(3).getId());
+        assertEquals(4, reconciled.get(4).getId());
+
+        // Unchanged issues are carried over, changed issues keep their transient state
+        assertSame(issue3, reconciled.get(0));
+        assertSame(issue1, reconciled.get(1));
+        assertEquals("two, changed", reconciled.get(2).getTitle());
+        assertEquals(Optional.of(readAt), reconciled.get(2).getMarkedReadAt());
+        assertSame(issue2, existing.get(2));
+    }
 }
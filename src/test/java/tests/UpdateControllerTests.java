@@ -0,0 +1,123 @@
+package tests;
+
+import backend.Logic;
+import backend.UpdateController;
+import backend.resource.Model;
+import backend.resource.ModelDelta;
+import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import filter.Parser;
+import filter.expression.FilterExpression;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import prefs.Preferences;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UpdateControllerTests {
+
+    private static final String REPO = "test/test";
+
+    private static final FilterExpression BY_DEFAULT = Parser.parse("bug");
+    private static final FilterExpression BY_ID = Parser.parse("bug sort:id");
+    private static final FilterExpression BY_STATE = Parser.parse("sort:state");
+    private static final List<FilterExpression> FILTER_EXPRS = Arrays.asList(BY_DEFAULT, BY_ID, BY_STATE);
+
+    private MultiModel models;
+    private Logic logic;
+
+    @Before
+    public void setup() {
+        Preferences prefs = mock(Preferences.class);
+        when(prefs.getMarkedReadAt(anyString(), anyInt())).thenReturn(Optional.empty());
+        models = new MultiModel(prefs);
+        models.setDefaultRepo(REPO);
+        logic = mock(Logic.class);
+        when(logic.getModels()).thenReturn(models);
+    }
+
+    private static Model model(TurboIssue... issues) {
+        return new Model(REPO, Arrays.asList(issues), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    private void open(Model model) {
+        models.queuePendingRepository(REPO);
+        models.addPending(model);
+    }
+
+    /**
+     * Refreshes the given filter expressions, in full if no deltas are given, and returns the issues
+     * passed on to be shown
+     */
+    @SuppressWarnings("unchecked")
+    private Map<FilterExpression, List<TurboIssue>> refresh(UpdateController controller, ModelDelta... deltas) {
+        if (deltas.length == 0) {
+            controller.filterSortRefresh(FILTER_EXPRS);
+        } else {
+            controller.filterSortRefresh(FILTER_EXPRS, Arrays.asList(deltas));
+        }
+        ArgumentCaptor<Map> issuesToShow = ArgumentCaptor.forClass(Map.class);
+        verify(logic, atLeastOnce()).updateUI(issuesToShow.capture());
+        return issuesToShow.getValue();
+    }
+
+    @Test
+    public void testPatchedResults() {
+        TurboIssue unchanged = new TurboIssue(REPO, 1, "bug one");
+        TurboIssue changed = new TurboIssue(REPO, 2, "bug two");
+        TurboIssue removed = new TurboIssue(REPO, 3, "bug three");
+        TurboIssue other = new TurboIssue(REPO, 4, "feature four");
+        Model before = model(unchanged, changed, removed, other);
+        open(before);
+
+        UpdateController controller = new UpdateController(logic);
+        refresh(controller);
+
+        // One issue no longer matches, one comes to match, and one is new
+        TurboIssue changedCopy = new TurboIssue(REPO, 2, "feature two");
+        TurboIssue otherCopy = new TurboIssue(REPO, 4, "bug four");
+        TurboIssue added = new TurboIssue(REPO, 5, "bug five");
+        Model after = model(added, unchanged, changedCopy, otherCopy);
+        models.replace(Arrays.asList(after));
+
+        Map<FilterExpression, List<TurboIssue>> patched = refresh(controller, ModelDelta.between(before, after));
+        assertEquals(Arrays.asList(added, otherCopy, unchanged), patched.get(BY_DEFAULT));
+        assertEquals(Arrays.asList(unchanged, otherCopy, added), patched.get(BY_ID));
+
+        // Patched results are the same as those processed in full, even where issues compare equal
+        assertEquals(refresh(new UpdateController(logic)), patched);
+    }
+
+    @Test
+    public void testStaleDelta() {
+        TurboIssue issue = new TurboIssue(REPO, 1, "bug one");
+        Model first = model(issue);
+        open(first);
+
+        UpdateController controller = new UpdateController(logic);
+        refresh(controller);
+
+        // The first update is not passed on, so the second cannot be applied to the last results alone
+        Model second = model(issue, new TurboIssue(REPO, 2, "bug two"));
+        models.replace(Arrays.asList(second));
+        Model third = model(issue, new TurboIssue(REPO, 2, "bug two"), new TurboIssue(REPO, 3, "bug three"));
+        models.replace(Arrays.asList(third));
+
+        Map<FilterExpression, List<TurboIssue>> refreshed = refresh(controller, ModelDelta.between(second, third));
+        assertEquals(third.getIssues().size(), refreshed.get(BY_ID).size());
+        assertEquals(refresh(new UpdateController(logic)), refreshed);
+    }
+}
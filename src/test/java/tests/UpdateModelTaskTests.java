@@ -0,0 +1,157 @@
+package tests;
+
+import backend.UpdateSignature;
+import backend.github.UpdateModelTask;
+import backend.interfaces.Repo;
+import backend.interfaces.RepoTask;
+import backend.interfaces.RequestPriority;
+import backend.interfaces.TaskRunner;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboUser;
+import backend.stub.DummySource;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UpdateModelTaskTests {
+
+    private static final String REPO = "test/test";
+
+    /**
+     * Creates a repo whose resources have all changed, but whose events feed reports the given event types
+     */
+    private static Repo createRepo(Optional<List<String>> newEventTypes) {
+        Repo repo = mock(Repo.class);
+        when(repo.getNewEventTypes(REPO)).thenReturn(newEventTypes.<Set<String>>map(HashSet::new));
+
+        List<TurboIssue> issues = new ArrayList<>();
+        issues.add(new TurboIssue(REPO, 1, "Issue 1"));
+        when(repo.getUpdatedIssues(anyString(), anyString(), any(Date.class)))
+                .thenReturn(new ImmutableTriple<>(issues, "issues2", new Date()));
+        when(repo.getUpdatedPullRequests(anyString(), any(Date.class))).thenReturn(new ArrayList<>());
+        when(repo.getUpdatedLabels(anyString(), anyString()))
+                .thenReturn(new ImmutablePair<>(new ArrayList<>(), "labels2"));
+        when(repo.getUpdatedMilestones(anyString(), anyString()))
+                .thenReturn(new ImmutablePair<>(new ArrayList<>(), "milestones2"));
+        List<TurboUser> users = new ArrayList<>();
+        users.add(new TurboUser(REPO, "user"));
+        when(repo.getUpdatedCollaborators(anyString(), anyString()))
+                .thenReturn(new ImmutablePair<>(users, "collaborators2"));
+        return repo;
+    }
+
+    private static Model createModel(long timeSinceLastCheck) {
+        return new Model(REPO, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new UpdateSignature("issues", "labels", "milestones", "collaborators",
+                        new Date(System.currentTimeMillis() - timeSinceLastCheck)));
+    }
+
+    private static Model update(Repo repo, Model model) throws ExecutionException, InterruptedException {
+        UpdateModelTask task = new UpdateModelTask(new DummySource(), repo, model, RequestPriority.VISIBLE);
+        task.run();
+        return task.response.get();
+    }
+
+    @Test
+    public void testNoNewEvents() throws ExecutionException, InterruptedException {
+        Repo repo = createRepo(Optional.of(new ArrayList<>()));
+        Model model = createModel(0);
+
+        assertSame(model, update(repo, model));
+        verify(repo, never()).forgetLastEventsPoll(anyString());
+        verify(repo, never()).getUpdatedIssues(anyString(), anyString(), any(Date.class));
+        verify(repo, never()).getUpdatedLabels(anyString(), anyString());
+        verify(repo, never()).getUpdatedMilestones(anyString(), anyString());
+        verify(repo, never()).getUpdatedCollaborators(anyString(), anyString());
+    }
+
+    @Test
+    public void testIssueEvents() throws ExecutionException, InterruptedException {
+        Repo repo = createRepo(Optional.of(Arrays.asList("IssueCommentEvent", "IssuesEvent")));
+        Model updated = update(repo, createModel(0));
+
+        // Collaborators are left as they were
+        assertEquals(1, updated.getIssues().size());
+        assertEquals(0, updated.getUsers().size());
+        assertEquals(new UpdateSignature("issues2", "labels2", "milestones2", "collaborators", new Date()),
+                updated.getUpdateSignature());
+        verify(repo, never()).getUpdatedCollaborators(anyString(), anyString());
+    }
+
+    @Test
+    public void testUnknownEvents() throws ExecutionException, InterruptedException {
+        Model updated = update(createRepo(Optional.empty()), createModel(0));
+
+        assertEquals(1, updated.getIssues().size());
+        assertEquals(1, updated.getUsers().size());
+    }
+
+    @Test
+    public void testFullUpdateDue() throws ExecutionException, InterruptedException {
+        // Nothing is reported by the events feed, but the issues have gone unchecked for a while
+        Model updated = update(createRepo(Optional.of(new ArrayList<>())), createModel(TimeUnit.HOURS.toMillis(1)));
+
+        assertEquals(1, updated.getIssues().size());
+        assertEquals(1, updated.getUsers().size());
+    }
+
+    @Test
+    public void testFailedUpdate() throws ExecutionException, InterruptedException {
+        Repo repo = createRepo(Optional.of(Arrays.asList("IssuesEvent")));
+        when(repo.getUpdatedLabels(anyString(), anyString())).thenThrow(new RuntimeException("Failed"));
+        Model model = createModel(0);
+
+        // The model is left as it is, and the events which were missed are not lost to the next update
+        assertSame(model, update(repo, model));
+        verify(repo).forgetLastEventsPoll(REPO);
+    }
+
+    @Test
+    public void testSingleThread() throws ExecutionException, InterruptedException, TimeoutException {
+        // The update runs on the only thread there is, so it must not wait there for the updates it starts
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TaskRunner taskRunner = new TaskRunner() {
+            @Override
+            public <R> RepoTask<R> addTask(RepoTask<R> task) {
+                executor.execute(task);
+                return task;
+            }
+
+            @Override
+            public void execute(Runnable r) {
+                executor.execute(r);
+            }
+        };
+        UpdateModelTask task = new UpdateModelTask(taskRunner, createRepo(Optional.empty()), createModel(0),
+                RequestPriority.VISIBLE);
+
+        Model updated = taskRunner.addTask(task).response.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(1, updated.getIssues().size());
+        assertEquals(1, updated.getUsers().size());
+    }
+}